@@ -0,0 +1,20 @@
+package com.study.querydsl.config;
+
+import com.study.querydsl.repository.MemberScanRepository;
+import com.study.querydsl.service.MemberAnalyticsSnapshot;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(MemberAnalyticsProperties.class)
+public class MemberAnalyticsConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "querydsl.analytics", name = "enabled", havingValue = "true")
+    public MemberAnalyticsSnapshot memberAnalyticsSnapshot(MemberScanRepository memberScanRepository,
+                                                           MemberAnalyticsProperties properties) {
+        return new MemberAnalyticsSnapshot(memberScanRepository, properties);
+    }
+}
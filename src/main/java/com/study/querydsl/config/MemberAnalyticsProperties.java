@@ -0,0 +1,17 @@
+package com.study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.analytics")
+public class MemberAnalyticsProperties {
+    // 켜면 MemberAnalyticsSnapshot 빈이 등록된다.
+    private boolean enabled = false;
+    // 이 주기마다 전체를 다시 읽는다. 그 사이에는 MemberChangedEvent 로 바뀐 회원만 반영한다.
+    private Duration rebuildInterval = Duration.ofMinutes(10);
+}
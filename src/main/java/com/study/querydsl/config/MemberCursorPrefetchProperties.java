@@ -0,0 +1,23 @@
+package com.study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.cursor-prefetch")
+public class MemberCursorPrefetchProperties {
+    // 끄면 요청에 prefetch=true 가 있어도 미리 읽지 않는다.
+    private boolean enabled = true;
+    // 미리 읽은 다음 페이지를 이 시간 안에 가져가지 않으면 버린다.
+    private Duration window = Duration.ofSeconds(10);
+    // 읽는 중인 다음 페이지를 기다리는 최대 시간. 넘으면 기다리지 않고 직접 읽는다.
+    private Duration waitTimeout = Duration.ofMillis(500);
+    // 동시에 들고 있을 다음 페이지 수. 넘으면 가장 오래된 것부터 버린다.
+    private int maxEntries = 1000;
+    private int threads = 2;
+    private int maxPageSize = 100;
+}
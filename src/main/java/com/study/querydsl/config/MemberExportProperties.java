@@ -0,0 +1,28 @@
+package com.study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.export")
+public class MemberExportProperties {
+    // member_id 범위를 몇 개로 나눠 동시에 읽을지. 파티션마다 커넥션을 하나씩 쓴다.
+    private int partitions = 4;
+    // 파티션 안에서 keyset 으로 한 번에 읽을 행 수
+    private int chunkSize = 1000;
+    // 읽기 스레드와 쓰기 스레드 사이 버퍼. 가득 차면 읽기 스레드가 기다린다.
+    private int queueCapacity = 2000;
+    private long progressInterval = 10_000;
+    // /members/export 응답을 끝까지 쓰는 데 허용하는 시간. 기본 MVC 비동기 타임아웃 대신 쓴다.
+    private Duration timeout = Duration.ofMinutes(30);
+
+    public void setPartitions(int partitions) {
+        Assert.isTrue(partitions > 0, "querydsl.export.partitions must be positive");
+        this.partitions = partitions;
+    }
+}
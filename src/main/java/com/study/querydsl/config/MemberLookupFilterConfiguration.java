@@ -0,0 +1,44 @@
+package com.study.querydsl.config;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.repository.MemberScanRepository;
+import com.study.querydsl.repository.support.MemberLookupFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+
+@Configuration
+@EnableConfigurationProperties(MemberLookupFilterProperties.class)
+public class MemberLookupFilterConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberLookupFilterConfiguration.class);
+
+    @Bean
+    public MemberLookupFilter memberLookupFilter(EntityManagerFactory entityManagerFactory,
+                                                 MemberLookupFilterProperties properties) {
+        return properties.isEnabled()
+                ? new MemberLookupFilter(entityManagerFactory, properties.getExpectedMembers(),
+                        properties.getFalsePositiveRate())
+                : MemberLookupFilter.disabled();
+    }
+
+    // 기동이 끝나면 전체 회원을 스캔해서 채운다. 스캔 도중에 생긴 회원도 함께 더해지므로 빠지는 회원은 없다.
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> memberLookupFilterLoader(MemberLookupFilter memberLookupFilter,
+                                                                               MemberScanRepository memberScanRepository) {
+        return event -> {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamIdOnly(true);
+            long rows = memberScanRepository.scanMemberTeams(condition,
+                    row -> memberLookupFilter.put(row.getMemberId(), row.getUsername()));
+            memberLookupFilter.markReady();
+            log.info("member lookup filter loaded with {} members", rows);
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package com.study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.lookup-filter")
+public class MemberLookupFilterProperties {
+    // 끄면 exist / findByUsername 이 항상 DB 를 조회한다.
+    private boolean enabled = true;
+    // 이 회원 수까지는 오탐률이 falsePositiveRate 이하로 유지된다. 필터 하나가 약 expectedMembers * 9.6 bit 를 쓴다(1%).
+    private long expectedMembers = 1_000_000;
+    private double falsePositiveRate = 0.01;
+}
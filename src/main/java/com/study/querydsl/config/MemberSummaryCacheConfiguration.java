@@ -0,0 +1,16 @@
+package com.study.querydsl.config;
+
+import com.study.querydsl.repository.support.MemberSummaryCache;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(MemberSummaryCacheProperties.class)
+public class MemberSummaryCacheConfiguration {
+
+    @Bean
+    public MemberSummaryCache memberSummaryCache(MemberSummaryCacheProperties properties) {
+        return new MemberSummaryCache(properties.getMaxEntries(), properties.getTtl(), properties.getNegativeTtl());
+    }
+}
@@ -0,0 +1,18 @@
+package com.study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.member-summary-cache")
+public class MemberSummaryCacheProperties {
+    // 넘으면 가장 오래 안 쓴 username 부터 버린다.
+    private int maxEntries = 10_000;
+    private Duration ttl = Duration.ofMinutes(5);
+    // 없는 username 결과를 캐시하는 시간. 가입 직후에도 오래 막히지 않도록 짧게 둔다.
+    private Duration negativeTtl = Duration.ofSeconds(5);
+}
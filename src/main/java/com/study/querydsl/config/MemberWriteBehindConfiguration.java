@@ -0,0 +1,27 @@
+package com.study.querydsl.config;
+
+import com.study.querydsl.repository.UsernameGramRepository;
+import com.study.querydsl.service.MemberWriteBehindBuffer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+@EnableConfigurationProperties(MemberWriteBehindProperties.class)
+public class MemberWriteBehindConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "querydsl.write-behind", name = "enabled", havingValue = "true")
+    public MemberWriteBehindBuffer memberWriteBehindBuffer(JdbcTemplate jdbcTemplate,
+                                                           TransactionTemplate transactionTemplate,
+                                                           UsernameGramRepository usernameGramRepository,
+                                                           ApplicationEventPublisher eventPublisher,
+                                                           MemberWriteBehindProperties properties) {
+        return new MemberWriteBehindBuffer(jdbcTemplate, transactionTemplate, usernameGramRepository, eventPublisher,
+                properties);
+    }
+}
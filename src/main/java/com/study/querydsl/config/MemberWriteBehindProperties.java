@@ -0,0 +1,21 @@
+package com.study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.write-behind")
+public class MemberWriteBehindProperties {
+    // 켜면 MemberWriteBehindBuffer 빈이 등록된다.
+    private boolean enabled = false;
+    // 모인 회원 수가 이만큼 되면 주기를 기다리지 않고 바로 내려쓴다.
+    private int maxPending = 1000;
+    // 내려쓰지 못하고 모인 회원 수가 이만큼 되면 새 회원의 변경은 IllegalStateException 으로 거절한다.
+    private int maxBuffered = 100_000;
+    // 이 주기마다 모인 변경을 내려쓴다.
+    private Duration flushInterval = Duration.ofSeconds(1);
+}
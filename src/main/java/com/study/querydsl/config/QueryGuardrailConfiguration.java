@@ -0,0 +1,37 @@
+package com.study.querydsl.config;
+
+import com.study.querydsl.controller.QueryGuardrailInterceptor;
+import com.study.querydsl.repository.support.QueryCircuitBreaker;
+import com.study.querydsl.repository.support.QueryGuardrail;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@EnableConfigurationProperties(QueryGuardrailProperties.class)
+@ConditionalOnProperty(prefix = "querydsl.guardrail", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class QueryGuardrailConfiguration {
+
+    @Bean
+    public QueryCircuitBreaker queryCircuitBreaker(QueryGuardrailProperties properties) {
+        return new QueryCircuitBreaker(properties.getCircuitBreaker());
+    }
+
+    @Bean
+    public QueryGuardrail queryGuardrail(QueryGuardrailProperties properties, QueryCircuitBreaker queryCircuitBreaker) {
+        return new QueryGuardrail(properties, queryCircuitBreaker);
+    }
+
+    @Bean
+    public WebMvcConfigurer queryGuardrailWebMvcConfigurer(QueryGuardrail queryGuardrail) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new QueryGuardrailInterceptor(queryGuardrail));
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.study.querydsl.config;
+
+import com.study.querydsl.repository.support.QueryGuardrail;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.guardrail")
+public class QueryGuardrailProperties {
+    private boolean enabled = true;
+    // 한도를 넘으면 잘라서 돌려줄지(TRUNCATE), 예외를 던질지(FAIL)
+    private QueryGuardrail.Mode mode = QueryGuardrail.Mode.TRUNCATE;
+    // 쿼리 하나가 돌려줄 최대 건수
+    private int maxRows = 1000;
+    // 요청 하나가 읽을 결과의 추정 메모리. 건수 x 한 건의 추정 크기로 계산한다.
+    private DataSize memoryBudget = DataSize.ofMegabytes(16);
+    private int estimatedColumnBytes = 48;
+    private int estimatedEntityBytes = 512;
+    // 요청 하나의 쿼리들이 쓸 수 있는 시간
+    private Duration timeout = Duration.ofSeconds(5);
+    // 키는 핸들러의 URL 패턴. yml 에서는 "[/v1/members]" 처럼 쓴다.
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    public Endpoint endpoint(String pattern) {
+        return endpoints.getOrDefault(pattern, new Endpoint());
+    }
+
+    @Getter
+    @Setter
+    public static class Endpoint {
+        // 비어 있으면 전역 값을 쓴다.
+        private Integer maxRows;
+        private Duration timeout;
+        // 서킷이 열려 있으면 이 엔드포인트 요청은 쿼리 전에 거절한다.
+        private boolean shed;
+    }
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        // 이보다 오래 걸린 쿼리는 타임아웃과 같이 실패로 센다.
+        private Duration slowCallThreshold = Duration.ofSeconds(1);
+        // 최근 windowSize 번 중 minimumCalls 번 이상 실행됐고 실패 비율이 failureRateThreshold 이상이면 연다.
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 0.5;
+        private Duration openDuration = Duration.ofSeconds(30);
+        // 반쯤 열린 상태에서 시험 삼아 통과시킬 요청 수
+        private int trialCalls = 3;
+    }
+}
@@ -0,0 +1,18 @@
+package com.study.querydsl.config;
+
+import com.study.querydsl.repository.support.ImplicitJoinInspector;
+import com.study.querydsl.repository.support.QueryAntiPatternLinter;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.inspector")
+public class QueryInspectorProperties {
+    // 암묵적 연관관계 조인(cross join)을 inner join 으로 바꿀지(REWRITE), 예외를 던질지(FAIL)
+    private ImplicitJoinInspector.Mode implicitJoin = ImplicitJoinInspector.Mode.REWRITE;
+    // fetchResults, select 절 엔티티, 전체 조회, 큰 offset 을 경고할지(REPORT), 예외를 던질지(FAIL). 테스트에서 켠다.
+    private QueryAntiPatternLinter.Mode antiPattern = QueryAntiPatternLinter.Mode.OFF;
+    private long maxOffset = 1000;
+}
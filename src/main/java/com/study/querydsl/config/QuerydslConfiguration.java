@@ -1,19 +1,39 @@
 package com.study.querydsl.config;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.repository.support.ImplicitJoinInspector;
+import com.study.querydsl.repository.support.InspectingJPAQueryFactory;
+import com.study.querydsl.repository.support.QueryAntiPatternLinter;
+import com.study.querydsl.repository.support.QueryInspector;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import javax.persistence.EntityManager;
 
 @Configuration
+@EnableConfigurationProperties(QueryInspectorProperties.class)
 public class QuerydslConfiguration {
     @Autowired
     EntityManager em;
 
     @Bean
-    public JPAQueryFactory jpaQueryFactory() {
-       return new JPAQueryFactory(em);
+    public QueryInspector implicitJoinInspector(QueryInspectorProperties properties) {
+        return new ImplicitJoinInspector(properties.getImplicitJoin());
+    }
+
+    @Bean
+    public QueryAntiPatternLinter queryAntiPatternLinter(QueryInspectorProperties properties) {
+        return new QueryAntiPatternLinter(properties.getAntiPattern(), properties.getMaxOffset());
+    }
+
+    @Bean
+    public JPAQueryFactory jpaQueryFactory(ObjectProvider<QueryInspector> queryInspectors) {
+       QueryInspector inspector = queryInspectors.orderedStream()
+               .reduce(QueryInspector::andThen)
+               .orElse(metadata -> metadata);
+       return new InspectingJPAQueryFactory(em, inspector);
     }
 }
@@ -0,0 +1,31 @@
+package com.study.querydsl.config;
+
+import com.study.querydsl.repository.support.SlowQueryDataSource;
+import com.study.querydsl.repository.support.SlowQueryLog;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+@EnableConfigurationProperties(SlowQueryProperties.class)
+public class SlowQueryLogConfiguration {
+
+    @Bean
+    public static BeanPostProcessor slowQueryDataSourcePostProcessor(ObjectProvider<SlowQueryProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (!(bean instanceof DataSource)) {
+                    return bean;
+                }
+                SlowQueryLog slowQueryLog = new SlowQueryLog(properties.getObject());
+                return slowQueryLog.isEnabled() ? SlowQueryDataSource.wrap((DataSource) bean, slowQueryLog) : bean;
+            }
+        };
+    }
+}
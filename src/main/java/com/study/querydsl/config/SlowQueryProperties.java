@@ -0,0 +1,26 @@
+package com.study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.slow-query")
+public class SlowQueryProperties {
+    private boolean enabled = true;
+    // 이 시간보다 오래 걸린 쿼리만 남긴다.
+    private Duration threshold = Duration.ofMillis(300);
+    // threshold 를 넘은 쿼리 중 실제로 남길 비율 (0.0 ~ 1.0)
+    private double sampleRate = 1.0;
+    private int maxParameterLength = 100;
+    // 호출 위치로 보여줄 스택 프레임의 패키지. excludes 에 걸리는 프레임은 건너뛴다.
+    private String callSitePackage = "com.study.querydsl";
+    private List<String> callSiteExcludes = new ArrayList<>(List.of(
+            "com.study.querydsl.config",
+            "com.study.querydsl.repository.support"));
+}
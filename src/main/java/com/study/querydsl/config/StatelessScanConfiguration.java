@@ -0,0 +1,22 @@
+package com.study.querydsl.config;
+
+import com.study.querydsl.repository.support.StatelessScanner;
+import org.hibernate.SessionFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+@Configuration
+@EnableConfigurationProperties(StatelessScanProperties.class)
+public class StatelessScanConfiguration {
+
+    @Bean
+    public StatelessScanner statelessScanner(EntityManagerFactory entityManagerFactory, DataSource dataSource,
+                                             StatelessScanProperties properties) {
+        return new StatelessScanner(entityManagerFactory.unwrap(SessionFactory.class), dataSource,
+                properties.getFetchSize());
+    }
+}
@@ -0,0 +1,13 @@
+package com.study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.scan")
+public class StatelessScanProperties {
+    // JDBC 드라이버가 한 번에 가져올 행 수. 스캔 한 번에 쓰는 메모리는 이 크기만큼이다.
+    private int fetchSize = 500;
+}
@@ -0,0 +1,42 @@
+package com.study.querydsl.config;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.repository.support.TeamNameDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.study.querydsl.domain.QTeam.team;
+
+@Configuration
+public class TeamNameDictionaryConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(TeamNameDictionaryConfiguration.class);
+
+    @Bean
+    public TeamNameDictionary teamNameDictionary(EntityManagerFactory entityManagerFactory) {
+        return new TeamNameDictionary(entityManagerFactory);
+    }
+
+    // 팀은 많지 않아서 한 번에 읽는다.
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> teamNameDictionaryLoader(TeamNameDictionary teamNameDictionary,
+                                                                               JPAQueryFactory queryFactory) {
+        return event -> {
+            Map<Long, String> namesById = new HashMap<>();
+            for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+                namesById.put(row.get(team.id), row.get(team.name));
+            }
+            teamNameDictionary.load(namesById);
+            log.info("team name dictionary loaded with {} teams", namesById.size());
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package com.study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.team-stats")
+public class TeamStatsProperties {
+    // 캐시된 통계를 그대로 돌려주는 최대 시간. 지나면 요청 스레드에서 다시 계산한다.
+    private Duration ttl = Duration.ofSeconds(10);
+    // 이 시간이 지나면 캐시 값을 돌려주면서 백그라운드에서 미리 다시 계산한다. (ttl 보다 짧아야 한다)
+    private Duration refreshAhead = Duration.ofSeconds(7);
+}
@@ -0,0 +1,17 @@
+package com.study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "querydsl.username-gram")
+public class UsernameGramProperties {
+    // 검색어마다 고른 gram 을 이 시간 동안 다시 세지 않고 쓴다. gram 선택은 속도에만 영향을 준다.
+    private Duration selectivityTtl = Duration.ofMinutes(5);
+    // 기억해 둘 검색어 수. 넘으면 모두 버리고 다시 센다.
+    private int maxKeywords = 1000;
+}
@@ -1,13 +1,20 @@
 package com.study.querydsl.controller;
 
+import com.study.querydsl.dto.MemberCursorPage;
 import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberSummary;
+import com.study.querydsl.dto.MemberSummaryCacheStats;
 import com.study.querydsl.dto.MemberTeamDto;
 import com.study.querydsl.repository.MemberJpaRepository;
 import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.service.MemberCursorService;
+import com.study.querydsl.service.MemberSummaryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
@@ -18,6 +25,8 @@ public class MemberController {
 
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberSummaryService memberSummaryService;
+    private final MemberCursorService memberCursorService;
 
     @GetMapping("/v1/members")
     public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
@@ -33,4 +42,23 @@ public class MemberController {
     public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable){
         return memberRepository.searchPageComplex(condition, pageable);
     }
+
+    // 무한 스크롤 클라이언트는 prefetch=true 로 다음 페이지를 미리 읽어 두게 할 수 있다.
+    @GetMapping("/v4/members")
+    public MemberCursorPage searchMemberV4(MemberSearchCondition condition,
+                                           @RequestParam(required = false) Long lastMemberId,
+                                           @RequestParam(defaultValue = "20") int size,
+                                           @RequestParam(defaultValue = "false") boolean prefetch) {
+        return memberCursorService.page(condition, lastMemberId, size, prefetch);
+    }
+
+    @GetMapping("/members/username/{username}")
+    public List<MemberSummary> findByUsername(@PathVariable String username) {
+        return memberSummaryService.findByUsername(username);
+    }
+
+    @GetMapping("/members/username-cache/stats")
+    public MemberSummaryCacheStats usernameCacheStats() {
+        return memberSummaryService.cacheStats();
+    }
 }
@@ -0,0 +1,44 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.config.MemberExportProperties;
+import com.study.querydsl.service.ExportFormat;
+import com.study.querydsl.service.MemberExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberExportController {
+
+    private final MemberExportService memberExportService;
+    private final MemberExportProperties properties;
+
+    @GetMapping("/members/export")
+    public ResponseEntity<StreamingResponseBody> exportMembers(@RequestParam(defaultValue = "csv") String format,
+                                                               HttpServletRequest request) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        StreamingResponseBody body = out -> {
+            // 전체 내보내기는 몇 분이 걸리므로 기본 비동기 타임아웃(spring.mvc.async.request-timeout)에 끊기지 않게 늘린다.
+            request.getAsyncContext().setTimeout(properties.getTimeout().toMillis());
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            memberExportService.export(writer, exportFormat, progress -> { });
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=members." + exportFormat.getExtension())
+                .body(body);
+    }
+}
@@ -0,0 +1,68 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.repository.support.QueryGuardrail;
+import com.study.querydsl.repository.support.QueryGuardrailException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * QueryGuardrail 이 결과를 잘랐으면 응답 헤더로 알려주고, 거절한 요청은 이유에 맞는 상태 코드로 돌려준다.
+ */
+@RestControllerAdvice
+@RequiredArgsConstructor
+public class QueryGuardrailAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String TRUNCATED_HEADER = "X-Result-Truncated";
+    public static final String ROW_LIMIT_HEADER = "X-Result-Row-Limit";
+
+    private final ObjectProvider<QueryGuardrail> queryGuardrail;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryGuardrail.Scope scope = QueryGuardrail.currentScope();
+        if (scope != null && scope.isTruncated()) {
+            response.getHeaders().set(TRUNCATED_HEADER, "true");
+            response.getHeaders().set(ROW_LIMIT_HEADER, String.valueOf(scope.getRowLimit()));
+        }
+        return body;
+    }
+
+    @ExceptionHandler(QueryGuardrailException.class)
+    public ResponseEntity<Map<String, Object>> handle(QueryGuardrailException e) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("reason", e.getReason());
+        body.put("message", e.getMessage());
+        switch (e.getReason()) {
+            case CIRCUIT_OPEN:
+                long retryAfter = queryGuardrail.getObject().getCircuitBreaker().retryAfterSeconds();
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                        .body(body);
+            case TIMEOUT:
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(body);
+            default:
+                return ResponseEntity.unprocessableEntity().body(body);
+        }
+    }
+}
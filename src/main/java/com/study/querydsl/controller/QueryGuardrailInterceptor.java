@@ -0,0 +1,52 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.repository.support.QueryGuardrail;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 컨트롤러 요청마다 URL 패턴(/v1/members 등)을 엔드포인트 이름으로 QueryGuardrail Scope 를 연다.
+ * 비동기 핸들러(StreamingResponseBody 등)는 afterCompletion 이 불리지 않으므로 비동기 처리가 시작될 때 닫고,
+ * 결과를 쓰러 다시 들어오는 비동기 디스패치에서는 새로 열지 않는다.
+ */
+@RequiredArgsConstructor
+public class QueryGuardrailInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String SCOPE_ATTRIBUTE = QueryGuardrailInterceptor.class.getName() + ".scope";
+
+    private final QueryGuardrail queryGuardrail;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod && request.getDispatcherType() != DispatcherType.ASYNC) {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String endpoint = pattern != null ? pattern.toString() : request.getRequestURI();
+            request.setAttribute(SCOPE_ATTRIBUTE, queryGuardrail.open(endpoint));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        closeScope(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        closeScope(request);
+    }
+
+    private void closeScope(HttpServletRequest request) {
+        Object scope = request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope != null) {
+            request.removeAttribute(SCOPE_ATTRIBUTE);
+            ((QueryGuardrail.Scope) scope).close();
+        }
+    }
+}
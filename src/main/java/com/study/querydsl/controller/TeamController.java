@@ -0,0 +1,21 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.dto.TeamStatsDto;
+import com.study.querydsl.service.TeamStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamStatsService teamStatsService;
+
+    @GetMapping("/teams/stats")
+    public List<TeamStatsDto> teamStats() {
+        return teamStatsService.getStats();
+    }
+}
@@ -0,0 +1,30 @@
+package com.study.querydsl.domain;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * 시퀀스를 한 번 부를 때 id 를 block-size 개씩 받아 두고 메모리에서 나눠 준다. (pooled-lo)
+ * persist 마다 시퀀스를 부르지 않으므로 hibernate.jdbc.batch_size 와 함께 insert 가 batch 로 나간다.
+ *
+ * block-size 는 spring.jpa.properties.querydsl.id.block-size 로 바꾼다. 1 이면 예전처럼 매번 시퀀스를 부른다.
+ * 바꾸면 DB 시퀀스의 increment 도 같은 값으로 바꿔야 한다. (ddl-auto=create 면 다시 만들어진다)
+ */
+public class BlockSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String BLOCK_SIZE = "querydsl.id.block-size";
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Object blockSize = serviceRegistry.getService(ConfigurationService.class).getSettings().get(BLOCK_SIZE);
+        params.setProperty(INCREMENT_PARAM, blockSize != null ? blockSize.toString() : String.valueOf(DEFAULT_BLOCK_SIZE));
+        params.putIfAbsent(OPT_PARAM, "pooled-lo");
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -1,17 +1,29 @@
 package com.study.querydsl.domain;
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_age", columnList = "age"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age")
+})
+@EntityListeners(MemberLookupListener.class)
 public class Member {
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "member_seq")
+    @GenericGenerator(name = "member_seq", strategy = "com.study.querydsl.domain.BlockSequenceGenerator",
+            parameters = @Parameter(name = "sequence_name", value = "member_seq"))
     @Column(name = "member_id")
     private Long id;
 
@@ -22,6 +34,18 @@ public class Member {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
+
+    @ElementCollection
+    @CollectionTable(
+            name = "member_username_gram",
+            joinColumns = @JoinColumn(name = "member_id"),
+            // JPQL 벌크 delete 는 컬렉션 테이블을 지우지 않는다. 남은 gram 은 member 와 조인되지 않으므로 무해하다.
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT),
+            indexes = @Index(name = "idx_member_username_gram", columnList = "gram"))
+    @Column(name = "gram")
+    @Setter(AccessLevel.NONE)
+    private Set<String> usernameGrams = new HashSet<>();
+
     public Member(String username) {
         this(username, 0);
     }
@@ -29,12 +53,17 @@ public class Member {
         this(username, age, null);
     }
     public Member(String username, int age, Team team) {
-        this.username = username;
+        setUsername(username);
         this.age = age;
         if (team != null) {
             changeTeam(team);
         }
     }
+    public void setUsername(String username) {
+        this.username = username;
+        this.usernameGrams.clear();
+        this.usernameGrams.addAll(UsernameGrams.of(username));
+    }
     public void changeTeam(Team team) {
         this.team = team;
         team.getMembers().add(this);
@@ -0,0 +1,17 @@
+package com.study.querydsl.domain;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.Set;
+
+/**
+ * 영속성 컨텍스트를 거치지 않고 회원을 바꿨을 때 발행한다. 회원 정보를 캐시하는 곳은 이 이벤트로 비운다.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class MemberChangedEvent {
+    private final Set<Long> memberIds;
+}
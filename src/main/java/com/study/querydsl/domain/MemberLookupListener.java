@@ -0,0 +1,38 @@
+package com.study.querydsl.domain;
+
+import com.study.querydsl.repository.support.MemberLookupFilter;
+import com.study.querydsl.repository.support.MemberSummaryCache;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * 영속성 컨텍스트로 저장하거나 바꾼 회원을 flush 될 때 MemberLookupFilter 에 더하고 MemberSummaryCache 에서 지운다.
+ * 벌크 쓰기는 UsernameGramRepository 에서 같은 일을 한다.
+ */
+public class MemberLookupListener {
+
+    // 엔티티 매핑을 읽는 시점에는 필터 빈이 아직 없을 수 있어서 쓸 때 꺼낸다.
+    private final ObjectProvider<MemberLookupFilter> memberLookupFilter;
+    private final ObjectProvider<MemberSummaryCache> memberSummaryCache;
+
+    public MemberLookupListener(ObjectProvider<MemberLookupFilter> memberLookupFilter,
+                                ObjectProvider<MemberSummaryCache> memberSummaryCache) {
+        this.memberLookupFilter = memberLookupFilter;
+        this.memberSummaryCache = memberSummaryCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Member member) {
+        memberLookupFilter.ifAvailable(filter -> filter.put(member.getId(), member.getUsername()));
+        memberSummaryCache.ifAvailable(cache -> cache.invalidate(member.getId(), member.getUsername()));
+    }
+
+    @PostRemove
+    public void onRemove(Member member) {
+        memberSummaryCache.ifAvailable(cache -> cache.invalidate(member.getId(), member.getUsername()));
+    }
+}
@@ -1,6 +1,8 @@
 package com.study.querydsl.domain;
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -11,10 +13,14 @@ import java.util.List;
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name, team_id"))
+@EntityListeners(TeamNameListener.class)
 public class Team {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "team_seq")
+    @GenericGenerator(name = "team_seq", strategy = "com.study.querydsl.domain.BlockSequenceGenerator",
+            parameters = @Parameter(name = "sequence_name", value = "team_seq"))
     @Column(name = "team_id")
     private Long id;
     private String name;
@@ -22,7 +28,7 @@ public class Team {
     @OneToMany(mappedBy = "team")
     List<Member> members = new ArrayList<>();
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "member_id")
     Member leader;
 
@@ -0,0 +1,32 @@
+package com.study.querydsl.domain;
+
+import com.study.querydsl.repository.support.TeamNameDictionary;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * 저장하거나 바꾸거나 지운 팀을 TeamNameDictionary 에 알린다.
+ */
+public class TeamNameListener {
+
+    // 엔티티 매핑을 읽는 시점에는 사전 빈이 아직 없을 수 있어서 쓸 때 꺼낸다.
+    private final ObjectProvider<TeamNameDictionary> teamNameDictionary;
+
+    public TeamNameListener(ObjectProvider<TeamNameDictionary> teamNameDictionary) {
+        this.teamNameDictionary = teamNameDictionary;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Team team) {
+        teamNameDictionary.ifAvailable(dictionary -> dictionary.onSaved(team.getId(), team.getName()));
+    }
+
+    @PostRemove
+    public void onRemove(Team team) {
+        teamNameDictionary.ifAvailable(dictionary -> dictionary.onRemoved(team.getId()));
+    }
+}
@@ -0,0 +1,25 @@
+package com.study.querydsl.domain;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+public final class UsernameGrams {
+
+    public static final int GRAM_SIZE = 3;
+
+    private UsernameGrams() {
+    }
+
+    // username 을 GRAM_SIZE 길이로 잘라낸 n-gram 집합. GRAM_SIZE 보다 짧으면 빈 집합
+    public static Set<String> of(String text) {
+        if (text == null || text.length() < GRAM_SIZE) {
+            return Collections.emptySet();
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_SIZE));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,13 @@
+package com.study.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MemberCursorPage {
+    // member_id 내림차순
+    private final List<MemberTeamDto> content;
+    // 다음 페이지를 읽을 때 lastMemberId 로 넘길 값. 마지막 페이지면 null
+    private final Long nextCursor;
+}
@@ -6,7 +6,10 @@ import lombok.Data;
 public class MemberSearchCondition {
     // 회원 명, 팀명, 나이(ageGoe >  > ageLow)를 조건으로
     private String username;
+    private Long teamId;
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+    // true 면 팀 이름 없이 팀 id 만 돌려준다. 팀명 조건도 없으면 team 조인을 하지 않는다.
+    private boolean teamIdOnly;
 }
@@ -0,0 +1,21 @@
+package com.study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+/**
+ * username 조회 캐시에 담는 회원 요약. 캐시끼리 공유하므로 바꿀 수 없게 둔다.
+ */
+@Data
+public class MemberSummary {
+    private final Long memberId;
+    private final String username;
+    private final Long teamId;
+
+    @QueryProjection
+    public MemberSummary(Long memberId, String username, Long teamId) {
+        this.memberId = memberId;
+        this.username = username;
+        this.teamId = teamId;
+    }
+}
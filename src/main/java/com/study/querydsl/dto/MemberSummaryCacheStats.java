@@ -0,0 +1,18 @@
+package com.study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberSummaryCacheStats {
+    private final long hits;
+    // hits 중에서 "없음" 으로 캐시된 결과를 돌려준 수
+    private final long negativeHits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
@@ -11,6 +11,11 @@ public class MemberTeamDto {
     private Long teamId;
     private String teamName;
 
+    @QueryProjection
+    public MemberTeamDto(Long memberId, String username, int age, Long teamId) {
+        this(memberId, username, age, teamId, null);
+    }
+
     @QueryProjection
     public MemberTeamDto(Long memberId, String username, int age, Long teamId, String teamName) {
         this.memberId = memberId;
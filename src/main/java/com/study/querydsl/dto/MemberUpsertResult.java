@@ -0,0 +1,21 @@
+package com.study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberUpsertResult {
+
+    public enum Outcome {
+        INSERTED,
+        UPDATED,
+        // 이미 같은 값이라 쓰지 않았다.
+        UNCHANGED,
+        // memberId 에 해당하는 회원이 없어서 쓰지 않았다.
+        NOT_FOUND,
+        // 같은 요청 안에서 뒤에 나온 같은 회원의 행이 대신 반영됐다.
+        SUPERSEDED
+    }
+
+    private final Long memberId;
+    private final Outcome outcome;
+}
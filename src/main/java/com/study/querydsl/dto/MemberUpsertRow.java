@@ -0,0 +1,23 @@
+package com.study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class MemberUpsertRow {
+    // null 이면 새 회원으로 넣는다.
+    private Long memberId;
+    private String username;
+    private int age;
+    private Long teamId;
+
+    public MemberUpsertRow() {
+
+    }
+
+    public MemberUpsertRow(Long memberId, String username, int age, Long teamId) {
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+    }
+}
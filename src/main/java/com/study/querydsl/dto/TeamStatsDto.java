@@ -0,0 +1,34 @@
+package com.study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+@Data
+public class TeamStatsDto {
+    private Long teamId;
+    private String teamName;
+    private long memberCount;
+    private long ageSum;
+    private Double ageAvg;
+    private Integer ageMin;
+    private Integer ageMax;
+    // 연령대별 인원 (20 미만 / 20대 / 30 이상)
+    private long under20Count;
+    private long twentiesCount;
+    private long thirtyPlusCount;
+
+    @QueryProjection
+    public TeamStatsDto(Long teamId, String teamName, Long memberCount, Long ageSum, Double ageAvg,
+                        Integer ageMin, Integer ageMax, Long under20Count, Long twentiesCount, Long thirtyPlusCount) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+        this.ageSum = ageSum == null ? 0 : ageSum;
+        this.ageAvg = ageAvg;
+        this.ageMin = ageMin;
+        this.ageMax = ageMax;
+        this.under20Count = under20Count == null ? 0 : under20Count;
+        this.twentiesCount = twentiesCount == null ? 0 : twentiesCount;
+        this.thirtyPlusCount = thirtyPlusCount == null ? 0 : thirtyPlusCount;
+    }
+}
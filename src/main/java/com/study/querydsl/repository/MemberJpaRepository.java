@@ -2,14 +2,16 @@ package com.study.querydsl.repository;
 
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import com.study.querydsl.domain.Member;
 import com.study.querydsl.domain.QMember;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
 import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.repository.support.MemberSearch;
+import com.study.querydsl.repository.support.TeamNameDictionary;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
@@ -20,16 +22,20 @@ import static com.study.querydsl.domain.QTeam.team;
 import static org.springframework.util.StringUtils.*;
 
 @Repository
+@Transactional(readOnly = true)
 public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final TeamNameDictionary teamNameDictionary;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory, TeamNameDictionary teamNameDictionary) {
         this.em = em;
-        this.queryFactory = new JPAQueryFactory(em);
+        this.queryFactory = queryFactory;
+        this.teamNameDictionary = teamNameDictionary;
     }
 
+    @Transactional
     public void save(Member member) {
         em.persist(member);
     }
@@ -69,8 +75,12 @@ public class MemberJpaRepository {
             builder.and(member.username.eq(condition.getUsername()));
         }
 
+        if (condition.getTeamId() != null) {
+            builder.and(member.team.id.eq(condition.getTeamId()));
+        }
+
         if(hasText(condition.getTeamName())){
-            builder.and(team.name.eq(condition.getTeamName()));
+            builder.and(MemberSearch.teamNameEq(condition.getTeamName(), teamNameDictionary));
         }
 
         if(condition.getAgeGoe() != null) {
@@ -96,42 +106,7 @@ public class MemberJpaRepository {
     }
 
     public List<MemberTeamDto> searchByWhere(MemberSearchCondition condition){
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                    usernameEq(condition.getUsername()),
-                    teamNameEq(condition.getTeamName()),
-                    ageGoe(condition.getAgeGoe()),
-                    ageLoe(condition.getAgeLoe())
-                )
+        return MemberSearch.memberTeams(queryFactory, condition, teamNameDictionary)
                 .fetch();
     }
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
-
-    private BooleanExpression ageBetween(Integer ageLoe, Integer ageGoe) {
-        return ageLoe(ageLoe).and(ageGoe(ageGoe));
-    }
 }
@@ -1,61 +1,86 @@
 package com.study.querydsl.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.study.querydsl.domain.Member;
 import com.study.querydsl.domain.QMember;
 import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.repository.support.FetchPlan;
 import com.study.querydsl.repository.support.Querydsl4RepositorySupport;
+import com.study.querydsl.repository.support.SortTranslator;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import static com.study.querydsl.domain.QMember.member;
 import static com.study.querydsl.domain.QTeam.team;
+import static com.study.querydsl.repository.support.MemberSearch.ageGoe;
+import static com.study.querydsl.repository.support.MemberSearch.ageLoe;
+import static com.study.querydsl.repository.support.MemberSearch.teamNameEq;
+import static com.study.querydsl.repository.support.MemberSearch.usernameEq;
 import static org.springframework.util.StringUtils.hasText;
 import static org.springframework.util.StringUtils.removeDuplicateStrings;
 
 @Repository
+@Transactional(readOnly = true)
 public class MemberQuerydslSupportRepository extends Querydsl4RepositorySupport {
+
+    // 정렬은 member 인덱스가 있는 경로만 허용한다. 조인한 team.name 으로는 idx_team_name 을 쓸 수 없어 뺐다.
+    private static final SortTranslator SORTS = SortTranslator.tiebreaker("id", member.id)
+            .allow("username", member.username)
+            .allow("age", member.age);
+
     public MemberQuerydslSupportRepository() {
-        super(Member.class);
+        super(Member.class, SORTS);
     }
 
     public List<Member> basicSelect(){
-        return select(member)
+        return readOnlySelect(member)
                 .from(member)
                 .fetch();
     }
 
     public List<Member> basicSelectFrom(){
-        return selectFrom(member)
+        return readOnlySelectFrom(member)
                 .fetch();
     }
 
-    public Page<Member> searchPageByApplyPage(MemberSearchCondition condition, Pageable pageable){
+    public List<Member> search(MemberSearchCondition condition, FetchPlan fetchPlan){
         JPAQuery<Member> query = selectFrom(member)
+                .leftJoin(member.team, team)
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 );
+        return fetch(query, fetchPlan);
+    }
+
+    public Page<Member> searchPageByApplyPage(MemberSearchCondition condition, Pageable pageable){
+        JPAQuery<Member> query = searchWhere(selectFrom(member), condition);
 
-        List<Member> content = getQuerydsl().applyPagination(pageable, query).fetch();
-        return PageableExecutionUtils.getPage(content, pageable, query::fetchCount);
+        JPAQuery<?> countQuery = countQuery(query);
+        List<Member> content = applyPagination(pageable, query).fetch();
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
     }
 
     public Page<Member> applyPagination(MemberSearchCondition condition, Pageable pageable){
-        return applyPagination(pageable, query ->
-            query.selectFrom(member)
-                 .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+        return applyPagination(pageable, query -> searchWhere(query.selectFrom(member), condition));
+    }
+
+    // team.name 으로 거를 때만 team 을 조인한다.
+    private static <T> JPAQuery<T> searchWhere(JPAQuery<T> query, MemberSearchCondition condition) {
+        if (hasText(condition.getTeamName())) {
+            query.leftJoin(member.team, team);
+        }
+        return query.where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
         );
     }
 
@@ -83,21 +108,4 @@ public class MemberQuerydslSupportRepository extends Querydsl4RepositorySupport
                     )
                 );
     }
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
-
 }
@@ -1,5 +1,7 @@
 package com.study.querydsl.repository;
 
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.dto.MemberCursorPage;
 import com.study.querydsl.dto.MemberDto;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
@@ -10,7 +12,9 @@ import java.util.List;
 
 public interface MemberRepositoryCustom {
 
+    List<Member> findByUsername(String username);
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+    MemberCursorPage searchByCursor(MemberSearchCondition condition, Long lastMemberId, int size);
 }
@@ -5,47 +5,62 @@ import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import com.study.querydsl.domain.Member;
+import com.study.querydsl.dto.MemberCursorPage;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
 import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.repository.support.CountQuery;
+import com.study.querydsl.repository.support.MemberLookupFilter;
+import com.study.querydsl.repository.support.MemberSearch;
+import com.study.querydsl.repository.support.TeamNameDictionary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
 
-import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static com.study.querydsl.domain.QMember.member;
 import static com.study.querydsl.domain.QTeam.team;
-import static org.springframework.util.StringUtils.hasText;
+import static com.study.querydsl.repository.support.MemberSearch.ageGoe;
+import static com.study.querydsl.repository.support.MemberSearch.ageLoe;
+import static com.study.querydsl.repository.support.MemberSearch.teamIdEq;
+import static com.study.querydsl.repository.support.MemberSearch.teamNameEq;
+import static com.study.querydsl.repository.support.MemberSearch.usernameEq;
 
+@Transactional(readOnly = true)
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
     private final JPAQueryFactory queryFactory;
+    private final MemberLookupFilter memberLookupFilter;
+    private final TeamNameDictionary teamNameDictionary;
+
+    public MemberRepositoryImpl(JPAQueryFactory queryFactory, MemberLookupFilter memberLookupFilter,
+                                TeamNameDictionary teamNameDictionary) {
+        this.queryFactory = queryFactory;
+        this.memberLookupFilter = memberLookupFilter;
+        this.teamNameDictionary = teamNameDictionary;
+    }
 
-    public MemberRepositoryImpl(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em);
+    // 없는 username 조회가 대부분이라 필터에서 걸러지면 DB 를 조회하지 않는다.
+    @Override
+    public List<Member> findByUsername(String username) {
+        if (!memberLookupFilter.mightContainUsername(username)) {
+            return Collections.emptyList();
+        }
+        return queryFactory
+                .selectFrom(member)
+                .where(username != null ? member.username.eq(username) : member.username.isNull())
+                .fetch();
     }
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+        return MemberSearch.memberTeams(queryFactory, condition, teamNameDictionary)
                 .fetch();
     }
 
@@ -63,7 +78,8 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
                 .leftJoin(member.team, team)
                 .where(
                         usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
+                        teamIdEq(condition.getTeamId()),
+                        teamNameEq(condition.getTeamName(), teamNameDictionary),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
@@ -78,56 +94,39 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+        JPAQuery<MemberTeamDto> query = MemberSearch.memberTeams(queryFactory, condition, teamNameDictionary);
+
+        // 팀 이름을 돌려주더라도 팀명 조건이 없으면 count 쿼리에서는 team 조인이 빠진다.
+        JPAQuery<?> countQuery = CountQuery.from(query, queryFactory);
+
+        List<MemberTeamDto> content = query
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
 
-        JPAQuery<Member> countQuery = queryFactory
-                .selectFrom(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
-
         return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
+    /**
+     * No Offset 페이징. lastMemberId 보다 작은 id 를 size 만큼 읽는다. 한 건 더 읽어서 다음 페이지가 있는지 본다.
+     */
+    @Override
+    public MemberCursorPage searchByCursor(MemberSearchCondition condition, Long lastMemberId, int size) {
+        Assert.isTrue(size > 0, "size must be positive");
+        List<MemberTeamDto> content = MemberSearch.memberTeams(queryFactory, condition, teamNameDictionary)
+                .where(memberIdLt(lastMemberId))
+                .orderBy(member.id.desc())
+                .limit(size + 1)
+                .fetch();
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+        if (content.size() <= size) {
+            return new MemberCursorPage(content, null);
+        }
+        content = new ArrayList<>(content.subList(0, size));
+        return new MemberCursorPage(content, content.get(size - 1).getMemberId());
     }
 
-    private BooleanExpression ageBetween(Integer ageLoe, Integer ageGoe) {
-        return ageLoe(ageLoe).and(ageGoe(ageGoe));
+    private BooleanExpression memberIdLt(Long lastMemberId) {
+        return lastMemberId != null ? member.id.lt(lastMemberId) : null;
     }
 }
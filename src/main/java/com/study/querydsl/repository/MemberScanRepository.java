@@ -0,0 +1,57 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.QMemberTeamDto;
+import com.study.querydsl.repository.support.MemberSearch;
+import com.study.querydsl.repository.support.StatelessScanner;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.study.querydsl.domain.QMember.member;
+
+/**
+ * 배치 작업용 전체 스캔. findAll 과 달리 결과를 리스트로 모으지 않고 영속성 컨텍스트에도 올리지 않는다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberScanRepository {
+
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    private final JPAQueryFactory queryFactory;
+    private final StatelessScanner scanner;
+
+    public long scanAll(Consumer<Member> consumer) {
+        return scanner.scan(queryFactory.selectFrom(member).orderBy(member.id.asc()), consumer);
+    }
+
+    public long scanMemberTeams(MemberSearchCondition condition, Consumer<MemberTeamDto> consumer) {
+        return scanner.scan(MemberSearch.memberTeams(queryFactory, condition).orderBy(member.id.asc()), consumer);
+    }
+
+    /**
+     * 주어진 회원만 member_id 순서로 다시 읽는다. 팀 이름은 읽지 않는다.
+     */
+    public long scanByIds(Collection<Long> memberIds, Consumer<MemberTeamDto> consumer) {
+        List<Long> ids = new ArrayList<>(memberIds);
+        ids.sort(null);
+        long rows = 0;
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size()));
+            rows += scanner.scan(queryFactory
+                    .select(new QMemberTeamDto(member.id, member.username, member.age, member.team.id))
+                    .from(member)
+                    .where(member.id.in(chunk))
+                    .orderBy(member.id.asc()), consumer);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,169 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.MemberChangedEvent;
+import com.study.querydsl.dto.MemberUpsertResult;
+import com.study.querydsl.dto.MemberUpsertResult.Outcome;
+import com.study.querydsl.dto.MemberUpsertRow;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 회원을 엔티티로 읽지 않고 JDBC batch 로 한꺼번에 넣거나 고친다.
+ *
+ * memberId 가 없으면 Member 의 id 생성기로 id 를 받아 insert 하고, 있으면 현재 값과 비교해서 달라진 행만 update 한다.
+ * 영속성 컨텍스트를 거치지 않으므로 끝나면 바뀐 회원을 영속성 컨텍스트와 2차 캐시에서 내리고 MemberChangedEvent 를 발행한다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberUpsertRepository {
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final String INSERT_SQL = "insert into member (member_id, username, age, team_id) values (?, ?, ?, ?)";
+    private static final int[] INSERT_TYPES = {Types.BIGINT, Types.VARCHAR, Types.INTEGER, Types.BIGINT};
+    private static final String UPDATE_SQL = "update member set username = ?, age = ?, team_id = ? where member_id = ?";
+    private static final int[] UPDATE_TYPES = {Types.VARCHAR, Types.INTEGER, Types.BIGINT, Types.BIGINT};
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final UsernameGramRepository usernameGramRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 결과는 rows 와 같은 순서로 돌려준다. 같은 memberId 가 여러 번 나오면 마지막 행만 반영한다.
+     */
+    @Transactional
+    public List<MemberUpsertResult> upsert(List<MemberUpsertRow> rows) {
+        // 영속성 컨텍스트에 쌓인 변경을 먼저 내려야 뒤에서 덮어쓰지 않는다.
+        em.flush();
+
+        MemberUpsertResult[] results = new MemberUpsertResult[rows.size()];
+        Map<Long, Integer> lastIndex = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Long memberId = rows.get(i).getMemberId();
+            Integer previous = memberId != null ? lastIndex.put(memberId, i) : null;
+            if (previous != null) {
+                results[previous] = new MemberUpsertResult(memberId, Outcome.SUPERSEDED);
+            }
+        }
+        List<Integer> targets = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (results[i] == null) {
+                targets.add(i);
+            }
+        }
+
+        Set<Long> changed = new LinkedHashSet<>();
+        for (int from = 0; from < targets.size(); from += CHUNK_SIZE) {
+            upsertChunk(rows, targets.subList(from, Math.min(from + CHUNK_SIZE, targets.size())), results, changed);
+        }
+        if (!changed.isEmpty()) {
+            evict(changed);
+            eventPublisher.publishEvent(new MemberChangedEvent(Collections.unmodifiableSet(changed)));
+        }
+        return Arrays.asList(results);
+    }
+
+    private void upsertChunk(List<MemberUpsertRow> rows, List<Integer> indexes,
+                             MemberUpsertResult[] results, Set<Long> changed) {
+        Map<Long, MemberUpsertRow> current = current(rows, indexes);
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        Map<Long, String> usernames = new HashMap<>();
+
+        for (int index : indexes) {
+            MemberUpsertRow row = rows.get(index);
+            Long memberId = row.getMemberId();
+            if (memberId == null) {
+                memberId = nextId();
+                inserts.add(new Object[]{memberId, row.getUsername(), row.getAge(), row.getTeamId()});
+                usernames.put(memberId, row.getUsername());
+                results[index] = new MemberUpsertResult(memberId, Outcome.INSERTED);
+                changed.add(memberId);
+                continue;
+            }
+            MemberUpsertRow before = current.get(memberId);
+            if (before == null) {
+                results[index] = new MemberUpsertResult(memberId, Outcome.NOT_FOUND);
+            } else if (sameValues(before, row)) {
+                results[index] = new MemberUpsertResult(memberId, Outcome.UNCHANGED);
+            } else {
+                updates.add(new Object[]{row.getUsername(), row.getAge(), row.getTeamId(), memberId});
+                if (!Objects.equals(before.getUsername(), row.getUsername())) {
+                    usernames.put(memberId, row.getUsername());
+                }
+                results[index] = new MemberUpsertResult(memberId, Outcome.UPDATED);
+                changed.add(memberId);
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, inserts, INSERT_TYPES);
+        jdbcTemplate.batchUpdate(UPDATE_SQL, updates, UPDATE_TYPES);
+        usernameGramRepository.replace(usernames);
+    }
+
+    private Map<Long, MemberUpsertRow> current(List<MemberUpsertRow> rows, List<Integer> indexes) {
+        List<Object> ids = new ArrayList<>();
+        for (int index : indexes) {
+            if (rows.get(index).getMemberId() != null) {
+                ids.add(rows.get(index).getMemberId());
+            }
+        }
+        Map<Long, MemberUpsertRow> current = new HashMap<>();
+        if (ids.isEmpty()) {
+            return current;
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.query("select member_id, username, age, team_id from member where member_id in (" + placeholders + ")",
+                (RowCallbackHandler) rs -> current.put(rs.getLong(1),
+                        new MemberUpsertRow(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getObject(4, Long.class))),
+                ids.toArray());
+        return current;
+    }
+
+    private boolean sameValues(MemberUpsertRow before, MemberUpsertRow after) {
+        return Objects.equals(before.getUsername(), after.getUsername())
+                && before.getAge() == after.getAge()
+                && Objects.equals(before.getTeamId(), after.getTeamId());
+    }
+
+    // em.persist 와 같은 id 생성기(시퀀스)를 쓴다.
+    private Long nextId() {
+        SharedSessionContractImplementor session = em.unwrap(SharedSessionContractImplementor.class);
+        return (Long) persister(session).getIdentifierGenerator().generate(session, null);
+    }
+
+    private void evict(Set<Long> memberIds) {
+        SharedSessionContractImplementor session = em.unwrap(SharedSessionContractImplementor.class);
+        EntityPersister persister = persister(session);
+        for (Long memberId : memberIds) {
+            Object managed = session.getPersistenceContextInternal().getEntity(session.generateEntityKey(memberId, persister));
+            if (managed != null) {
+                em.detach(managed);
+            }
+            em.getEntityManagerFactory().getCache().evict(Member.class, memberId);
+        }
+    }
+
+    private EntityPersister persister(SharedSessionContractImplementor session) {
+        return session.getFactory().getMetamodel().entityPersister(Member.class);
+    }
+}
@@ -0,0 +1,96 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.study.querydsl.domain.Team;
+import com.study.querydsl.dto.QTeamStatsDto;
+import com.study.querydsl.dto.TeamStatsDto;
+import com.study.querydsl.repository.support.FetchPlan;
+import com.study.querydsl.repository.support.OrderByNull;
+import com.study.querydsl.repository.support.Querydsl4RepositorySupport;
+import com.study.querydsl.repository.support.SortTranslator;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.study.querydsl.domain.QMember.member;
+import static com.study.querydsl.domain.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+@Repository
+@Transactional(readOnly = true)
+public class TeamQuerydslSupportRepository extends Querydsl4RepositorySupport {
+
+    private static final SortTranslator SORTS = SortTranslator.tiebreaker("id", team.id)
+            .allow("name", team.name);
+
+    public TeamQuerydslSupportRepository() {
+        super(Team.class, SORTS);
+    }
+
+    public List<Team> findAll(FetchPlan fetchPlan){
+        return fetch(selectFrom(team).orderBy(team.id.asc()), fetchPlan);
+    }
+
+    public List<Team> findByNameStartsWith(String prefix, FetchPlan fetchPlan){
+        return fetch(
+                selectFrom(team)
+                        .where(teamNameStartsWith(prefix))
+                        .orderBy(team.id.asc()),
+                fetchPlan);
+    }
+
+    public Page<Team> searchPage(String prefix, Pageable pageable, FetchPlan fetchPlan){
+        return applyPagination(
+                pageable,
+                query -> query
+                        .selectFrom(team)
+                        .where(teamNameStartsWith(prefix)),
+                fetchPlan);
+    }
+
+    /**
+     * 팀별 인원/나이 통계를 member 한 번만 읽어서 계산한다. 연령대별 인원은 CaseBuilder 로 조건부 집계한다.
+     */
+    public List<TeamStatsDto> stats(){
+        JPAQuery<TeamStatsDto> query = select(new QTeamStatsDto(
+                        team.id,
+                        team.name,
+                        member.count(),
+                        member.age.sum().longValue(),
+                        member.age.avg(),
+                        member.age.min(),
+                        member.age.max(),
+                        ageBetween(null, 20).sum(),
+                        ageBetween(20, 30).sum(),
+                        ageBetween(30, null).sum()))
+                .from(team)
+                .leftJoin(team.members, member)
+                .groupBy(team.id, team.name);
+        if (OrderByNull.isSupported(getEntityManager())) {
+            query.orderBy(OrderByNull.DEFAULT);
+        }
+        return query.fetch();
+    }
+
+    private NumberExpression<Long> ageBetween(Integer from, Integer to) {
+        // 멤버가 없는 팀은 left join 으로 null 행이 하나 생기므로 세지 않는다.
+        BooleanExpression condition = member.id.isNotNull();
+        if (from != null) {
+            condition = condition.and(member.age.goe(from));
+        }
+        if (to != null) {
+            condition = condition.and(member.age.lt(to));
+        }
+        return new CaseBuilder().when(condition).then(1L).otherwise(0L);
+    }
+
+    private BooleanExpression teamNameStartsWith(String prefix) {
+        return hasText(prefix) ? team.name.startsWith(prefix) : null;
+    }
+}
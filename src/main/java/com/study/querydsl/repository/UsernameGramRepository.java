@@ -0,0 +1,126 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.config.UsernameGramProperties;
+import com.study.querydsl.domain.UsernameGrams;
+import com.study.querydsl.repository.support.MemberLookupFilter;
+import com.study.querydsl.repository.support.MemberSummaryCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 벌크 update 처럼 영속성 컨텍스트를 거치지 않는 쓰기 이후 member_username_gram 을 다시 맞춰준다.
+ * 바뀐 회원은 MemberLookupFilter 에 더하고 MemberSummaryCache 에서 지운다.
+ * 검색어마다 고른 gram 은 selectivityTtl 동안 기억한다. 어떤 gram 을 골라도 결과는 같고 속도만 달라지므로 조금 낡아도 된다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UsernameGramRepository {
+
+    private static final int CHUNK_SIZE = 1000;
+    // 가장 드문 gram 을 가진 회원이 전체의 이 비율보다 많으면 gram 인덱스로 좁히지 않고 스캔한다.
+    private static final double MAX_GRAM_SELECTIVITY = 0.1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberLookupFilter memberLookupFilter;
+    private final MemberSummaryCache memberSummaryCache;
+    private final UsernameGramProperties properties;
+    private final Map<String, GramChoice> gramChoices = new ConcurrentHashMap<>();
+
+    public void replace(Map<Long, String> usernames) {
+        if (usernames.isEmpty()) {
+            return;
+        }
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        usernames.forEach((memberId, username) -> {
+            deletes.add(new Object[]{memberId});
+            for (String gram : UsernameGrams.of(username)) {
+                inserts.add(new Object[]{memberId, gram});
+            }
+        });
+        jdbcTemplate.batchUpdate("delete from member_username_gram where member_id = ?", deletes);
+        jdbcTemplate.batchUpdate("insert into member_username_gram (member_id, gram) values (?, ?)", inserts);
+        memberLookupFilter.putAll(usernames);
+        memberSummaryCache.invalidate(usernames);
+    }
+
+    /**
+     * keyword 의 gram 중 가장 적은 회원이 가진 gram. 그 gram 으로도 충분히 좁혀지지 않으면 null.
+     * 테이블에 없는 gram 이 있으면 결과가 비므로 그 gram 을 돌려준다.
+     */
+    public String selectiveGram(String keyword) {
+        long now = System.nanoTime();
+        GramChoice choice = gramChoices.get(keyword);
+        if (choice != null && now - choice.chosenAt < properties.getSelectivityTtl().toNanos()) {
+            return choice.gram;
+        }
+        String gram = countSelectiveGram(keyword);
+        if (gramChoices.size() >= properties.getMaxKeywords()) {
+            gramChoices.clear();
+        }
+        gramChoices.put(keyword, new GramChoice(gram, now));
+        return gram;
+    }
+
+    private String countSelectiveGram(String keyword) {
+        Set<String> grams = UsernameGrams.of(keyword);
+        if (grams.isEmpty()) {
+            return null;
+        }
+        Map<String, Long> counts = new HashMap<>();
+        jdbcTemplate.query(
+                "select gram, count(*) from member_username_gram where gram in ("
+                        + String.join(", ", Collections.nCopies(grams.size(), "?")) + ") group by gram",
+                (RowCallbackHandler) rs -> counts.put(rs.getString(1), rs.getLong(2)),
+                grams.toArray());
+        String rarest = grams.stream()
+                .min(Comparator.comparing(gram -> counts.getOrDefault(gram, 0L)))
+                .get();
+        long rarestCount = counts.getOrDefault(rarest, 0L);
+        if (rarestCount == 0) {
+            return rarest;
+        }
+        Long members = jdbcTemplate.queryForObject("select count(*) from member", Long.class);
+        return rarestCount <= members * MAX_GRAM_SELECTIVITY ? rarest : null;
+    }
+
+    public void rebuildAll() {
+        memberSummaryCache.invalidateAll();
+        gramChoices.clear();
+        jdbcTemplate.update("delete from member_username_gram");
+        Long lastMemberId = 0L;
+        while (true) {
+            Map<Long, String> chunk = new LinkedHashMap<>();
+            jdbcTemplate.query(
+                    "select member_id, username from member where member_id > ? order by member_id limit ?",
+                    (RowCallbackHandler) rs -> chunk.put(rs.getLong(1), rs.getString(2)),
+                    lastMemberId, CHUNK_SIZE);
+            if (chunk.isEmpty()) {
+                return;
+            }
+            replace(chunk);
+            for (Long memberId : chunk.keySet()) {
+                lastMemberId = memberId;
+            }
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class GramChoice {
+        // null 이면 좁히지 않고 like 로 스캔한다.
+        private final String gram;
+        private final long chosenAt;
+    }
+}
@@ -7,6 +7,7 @@ import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import com.study.querydsl.domain.Member;
 import com.study.querydsl.dto.*;
+import com.study.querydsl.repository.support.MemberLookupFilter;
 import com.study.querydsl.repository.support.OrderByNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
@@ -14,32 +15,61 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.study.querydsl.domain.QMember.member;
 import static com.study.querydsl.domain.QTeam.team;
-import static org.springframework.util.StringUtils.hasText;
+import static com.study.querydsl.repository.support.MemberSearch.ageGoe;
+import static com.study.querydsl.repository.support.MemberSearch.ageLoe;
+import static com.study.querydsl.repository.support.MemberSearch.teamNameEq;
+import static com.study.querydsl.repository.support.MemberSearch.usernameEq;
+import static com.study.querydsl.repository.support.ReadOnlyQuery.readOnly;
+import static com.study.querydsl.repository.support.UsernameSearch.usernameContains;
+import static com.study.querydsl.repository.support.UsernameSearch.usernameStartsWith;
 
 @Repository
 @RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class WoowahwanMemberRepository {
 
+    private static final int BATCH_CHUNK_SIZE = 1000;
+
     private final JPAQueryFactory queryFactory;
+    private final UsernameGramRepository usernameGramRepository;
+    private final MemberLookupFilter memberLookupFilter;
 
     public List<Member> getMembers(){
-        return queryFactory
-                .selectFrom(member)
+        return readOnly(queryFactory
+                .selectFrom(member))
                 .fetch();
     }
 
+    // 실제로 username 이 바뀌는 회원만 골라서 바꾸고, 그 회원들의 gram 만 다시 만든다.
+    @Transactional
     public void batchUpdate(){
         String test = "test";
-        queryFactory
-            .update(member)
-            .set(member.username, test)
-            .execute();
+        List<Long> changed = queryFactory
+            .select(member.id)
+            .from(member)
+            .where(member.username.ne(test).or(member.username.isNull()))
+            .fetch();
+
+        for (int from = 0; from < changed.size(); from += BATCH_CHUNK_SIZE) {
+            List<Long> chunk = changed.subList(from, Math.min(from + BATCH_CHUNK_SIZE, changed.size()));
+            queryFactory
+                .update(member)
+                .set(member.username, test)
+                .where(member.id.in(chunk))
+                .execute();
+            Map<Long, String> usernames = new LinkedHashMap<>();
+            chunk.forEach(id -> usernames.put(id, test));
+            usernameGramRepository.replace(usernames);
+        }
     }
 
     private void dirtyChecking(){
@@ -59,8 +89,9 @@ public class WoowahwanMemberRepository {
                     member.age
             ))
             .from(member)
-            .where(member.username.contains("member")
-                    .and(memberIdLt(lastMemberId)))
+            .where(
+                    usernameContains("member", usernameGramRepository.selectiveGram("member")),
+                    memberIdLt(lastMemberId))
             .orderBy(member.id.desc())
             .limit(limit)
             .fetch();
@@ -74,7 +105,7 @@ public class WoowahwanMemberRepository {
         List<Long> ids = queryFactory
                 .select(member.id)
                 .from(member)
-                .where(member.username.like("member%"))
+                .where(usernameStartsWith("member"))
                 .orderBy(member.id.desc())
                 .limit(limit)
                 .offset(offset)
@@ -152,6 +183,9 @@ public class WoowahwanMemberRepository {
     }
 
     public Boolean exist(Long memberId) {
+        if (!memberLookupFilter.mightContainId(memberId)) {
+            return false;
+        }
         Integer fetchOne = queryFactory
                 .selectOne()
                 .from(member)
@@ -194,24 +228,4 @@ public class WoowahwanMemberRepository {
 
         return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
     }
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
-    }
-
-    private BooleanExpression ageBetween(Integer ageLoe, Integer ageGoe) {
-        return ageLoe(ageLoe).and(ageGoe(ageGoe));
-    }
 }
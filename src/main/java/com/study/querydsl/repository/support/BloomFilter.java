@@ -0,0 +1,101 @@
+package com.study.querydsl.repository.support;
+
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 넣은 값은 반드시 mightContain == true 이고, 넣지 않은 값은 falsePositiveRate 확률로만 true 가 되는 집합.
+ * 값을 빼는 연산은 없다. 여러 스레드에서 동시에 넣고 읽어도 된다.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    private BloomFilter(long bitCount, int hashCount) {
+        this.bits = new AtomicLongArray(Math.toIntExact((bitCount + 63) / 64));
+        this.bitCount = bitCount;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * expectedInsertions 개를 넣었을 때 오탐률이 falsePositiveRate 가 되도록 비트 수와 해시 수를 정한다.
+     */
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        Assert.isTrue(expectedInsertions > 0, "expectedInsertions must be positive");
+        Assert.isTrue(falsePositiveRate > 0 && falsePositiveRate < 1, "falsePositiveRate must be in (0, 1)");
+        long bitCount = Math.max(64, (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        int hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        return new BloomFilter(bitCount, hashCount);
+    }
+
+    public void put(long value) {
+        putHash(mix(value));
+    }
+
+    public void put(String value) {
+        putHash(hash(value));
+    }
+
+    public boolean mightContain(long value) {
+        return mightContainHash(mix(value));
+    }
+
+    public boolean mightContain(String value) {
+        return mightContainHash(hash(value));
+    }
+
+    // 64비트 해시 하나를 둘로 나눠 h1 + i * h2 로 hashCount 개의 위치를 만든다.
+    private void putHash(long hash) {
+        long h1 = (int) hash;
+        long h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = index(h1 + i * h2);
+            long mask = 1L << index;
+            int word = (int) (index >>> 6);
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    private boolean mightContainHash(long hash) {
+        long h1 = (int) hash;
+        long h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = index(h1 + i * h2);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(long combined) {
+        return (combined & Long.MAX_VALUE) % bitCount;
+    }
+
+    // FNV-1a 로 문자열을 64비트로 만든 뒤 섞는다.
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // murmur3 fmix64
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
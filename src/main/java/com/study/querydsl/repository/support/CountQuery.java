@@ -0,0 +1,205 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryFlag;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.MapExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import javax.persistence.Entity;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 조회 쿼리에서 count 쿼리를 만든다.
+ *
+ * <ul>
+ *     <li>select 절, order by, offset / limit, fetch join 플래그는 건수와 상관없으므로 뺀다.</li>
+ *     <li>to-one left join 은 행 수를 바꾸지 않으므로 where / group by / having / 남은 조인에서 쓰지 않으면 뺀다.</li>
+ *     <li>inner join, 컬렉션 join, on 절만 있는 엔티티 join 은 행 수를 바꿀 수 있으므로 남긴다.</li>
+ * </ul>
+ */
+public final class CountQuery {
+
+    private CountQuery() {
+    }
+
+    public static JPAQuery<?> from(JPAQuery<?> contentQuery, JPAQueryFactory queryFactory) {
+        QueryMetadata source = contentQuery.getMetadata();
+        List<JoinExpression> joins = source.getJoins();
+
+        // distinct 는 select 절 기준으로 세므로 select 절과 그 조인을 남긴다.
+        Expression<?> projection = source.isDistinct() ? source.getProjection() : null;
+        Set<Path<?>> referenced = new HashSet<>();
+        collectRoots(source.getWhere(), referenced);
+        collectRoots(source.getHaving(), referenced);
+        source.getGroupBy().forEach(groupBy -> collectRoots(groupBy, referenced));
+        collectRoots(projection, referenced);
+
+        // 뒤쪽 조인이 앞쪽 alias 를 쓰므로 뒤에서부터 본다.
+        boolean[] kept = new boolean[joins.size()];
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            JoinExpression join = joins.get(i);
+            kept[i] = i == 0 || !isPrunable(join, referenced);
+            if (kept[i]) {
+                collectRoots(join.getCondition(), referenced);
+                Path<?> association = association(join.getTarget());
+                if (association != null && association.getMetadata().getParent() != null) {
+                    referenced.add(association.getRoot());
+                }
+            }
+        }
+
+        JPAQuery<?> countQuery = queryFactory.query();
+        QueryMetadata metadata = countQuery.getMetadata();
+        for (int i = 0; i < joins.size(); i++) {
+            if (!kept[i]) {
+                continue;
+            }
+            JoinExpression join = joins.get(i);
+            metadata.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                metadata.addJoinCondition(join.getCondition());
+            }
+            for (JoinFlag flag : join.getFlags()) {
+                if (!flag.equals(JPAQueryMixin.FETCH)) {
+                    metadata.addJoinFlag(flag);
+                }
+            }
+        }
+        metadata.setDistinct(source.isDistinct());
+        for (QueryFlag flag : source.getFlags()) {
+            metadata.addFlag(flag);
+        }
+        for (Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+            setParam(metadata, param.getKey(), param.getValue());
+        }
+        if (source.getWhere() != null) {
+            metadata.addWhere(source.getWhere());
+        }
+        source.getGroupBy().forEach(metadata::addGroupBy);
+        if (source.getHaving() != null) {
+            metadata.addHaving(source.getHaving());
+        }
+        if (projection != null) {
+            metadata.setProjection(projection);
+        }
+        return countQuery;
+    }
+
+    private static boolean isPrunable(JoinExpression join, Set<Path<?>> referenced) {
+        if (join.getType() != JoinType.LEFTJOIN) {
+            return false;
+        }
+        Path<?> association = association(join.getTarget());
+        if (association == null
+                || association.getMetadata().getParent() == null
+                || association instanceof CollectionExpression
+                || association instanceof MapExpression
+                || !association.getType().isAnnotationPresent(Entity.class)) {
+            return false;
+        }
+        return !referenced.contains(alias(join.getTarget()));
+    }
+
+    // 조인 대상에서 alias 를 뗀 연관관계 경로. 엔티티 조인(on 절만 있는 조인)이면 루트 경로가 된다.
+    static Path<?> association(Expression<?> target) {
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            target = ((Operation<?>) target).getArg(0);
+        }
+        return target instanceof Path ? (Path<?>) target : null;
+    }
+
+    // 조인에서 선언한 변수. alias 가 없으면 경로 자체를 쓰므로 그 경로의 루트가 된다.
+    private static Path<?> alias(Expression<?> target) {
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            return ((Path<?>) ((Operation<?>) target).getArg(1)).getRoot();
+        }
+        return ((Path<?>) target).getRoot();
+    }
+
+    private static void collectRoots(Expression<?> expr, Set<Path<?>> roots) {
+        if (expr != null) {
+            expr.accept(RootCollector.INSTANCE, roots);
+        }
+    }
+
+    /**
+     * 식에서 쓰는 변수(경로의 루트)를 모은다. 서브쿼리가 바깥 alias 를 참조할 수 있으므로 서브쿼리 안도 본다.
+     */
+    private static class RootCollector implements Visitor<Void, Set<Path<?>>> {
+
+        static final RootCollector INSTANCE = new RootCollector();
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Path<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Path<?>> roots) {
+            expr.getArgs().forEach(arg -> collectRoots(arg, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Path<?>> roots) {
+            expr.getArgs().forEach(arg -> collectRoots(arg, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Path<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Path<?>> roots) {
+            roots.add(expr.getRoot());
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Path<?>> roots) {
+            QueryMetadata metadata = expr.getMetadata();
+            metadata.getJoins().forEach(join -> collectRoots(join.getCondition(), roots));
+            collectRoots(metadata.getProjection(), roots);
+            collectRoots(metadata.getWhere(), roots);
+            metadata.getGroupBy().forEach(groupBy -> collectRoots(groupBy, roots));
+            collectRoots(metadata.getHaving(), roots);
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Path<?>> roots) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    collectRoots((Expression<?>) arg, roots);
+                }
+            }
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> void setParam(QueryMetadata metadata, ParamExpression<T> param, Object value) {
+        metadata.setParam(param, (T) value);
+    }
+}
@@ -0,0 +1,290 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryFlag;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.util.Assert;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.metamodel.EntityType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 쿼리마다 어떤 연관관계를 어떻게 로딩할지 선언한다. 선언하지 않은 연관관계는 지연 로딩(NONE) 그대로 둔다.
+ *
+ * <pre>
+ * FetchPlan.none().fetchJoin(member.team)        // 같은 쿼리에서 fetch join
+ * FetchPlan.none().batch(team.members, 100)      // 루트 id 100개씩 IN 으로 추가 조회
+ * FetchPlan.none().subselect(team.members)       // 원본 조건을 서브쿼리로 한 번에 추가 조회
+ * </pre>
+ */
+public final class FetchPlan {
+
+    public enum Mode { FETCH_JOIN, BATCH, SUBSELECT, NONE }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Fetch {
+        private final Path<?> association;
+        private final Mode mode;
+        private final int batchSize;
+    }
+
+    private static final FetchPlan NONE = new FetchPlan(Collections.emptyList());
+    private static final String OWNER_ALIAS = "fetchOwner";
+
+    private final List<Fetch> fetches;
+
+    private FetchPlan(List<Fetch> fetches) {
+        this.fetches = fetches;
+    }
+
+    public static FetchPlan none() {
+        return NONE;
+    }
+
+    public FetchPlan fetchJoin(Path<?> association) {
+        return with(association, Mode.FETCH_JOIN, 0);
+    }
+
+    public FetchPlan batch(Path<?> association, int batchSize) {
+        Assert.isTrue(batchSize > 0, "batchSize must be positive");
+        return with(association, Mode.BATCH, batchSize);
+    }
+
+    public FetchPlan subselect(Path<?> association) {
+        return with(association, Mode.SUBSELECT, 0);
+    }
+
+    public FetchPlan lazy(Path<?> association) {
+        return with(association, Mode.NONE, 0);
+    }
+
+    public List<Fetch> getFetches() {
+        return fetches;
+    }
+
+    public Mode modeOf(Path<?> association) {
+        return fetches.stream()
+                .filter(fetch -> fetch.getAssociation().equals(association))
+                .map(Fetch::getMode)
+                .findFirst()
+                .orElse(Mode.NONE);
+    }
+
+    private FetchPlan with(Path<?> association, Mode mode, int batchSize) {
+        Assert.notNull(association.getMetadata().getParent(), "association must be a property path: " + association);
+        List<Fetch> next = fetches.stream()
+                .filter(fetch -> !fetch.getAssociation().equals(association))
+                .collect(Collectors.toCollection(ArrayList::new));
+        next.add(new Fetch(association, mode, batchSize));
+        return new FetchPlan(Collections.unmodifiableList(next));
+    }
+
+    /**
+     * 쿼리에 fetch join 을 붙여 실행하고, BATCH / SUBSELECT 연관관계는 결과의 루트 엔티티 기준으로 추가 조회해 초기화한다.
+     * 넘겨받은 쿼리는 바꾸지 않는다.
+     */
+    <T> List<T> fetch(JPAQuery<T> query, JPAQueryFactory queryFactory, EntityManager entityManager) {
+        QueryMetadata ownerSource = query.getMetadata().clone();
+
+        List<T> result = withFetchJoins(query, queryFactory).fetch();
+
+        for (Fetch fetch : fetches) {
+            if (fetch.getMode() == Mode.BATCH || fetch.getMode() == Mode.SUBSELECT) {
+                load(fetch, result, ownerSource, queryFactory, entityManager);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 쿼리를 복사하면서 FETCH_JOIN 연관관계에 fetch 플래그를 단다.
+     * 이미 조인한 연관관계는 그 조인에 플래그만 달고(on 절이 있으면 fetch 할 수 없으므로 제외), 없으면 left join 을 추가한다.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> JPAQuery<T> withFetchJoins(JPAQuery<T> query, JPAQueryFactory queryFactory) {
+        QueryMetadata source = query.getMetadata();
+        JPAQuery<T> planned = (JPAQuery<T>) queryFactory.query();
+        QueryMetadata metadata = planned.getMetadata();
+
+        Set<Path<?>> fetched = new HashSet<>();
+        boolean collectionFetchJoined = false;
+        for (JoinExpression join : source.getJoins()) {
+            metadata.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                metadata.addJoinCondition(join.getCondition());
+            }
+            join.getFlags().forEach(metadata::addJoinFlag);
+            Path<?> association = CountQuery.association(join.getTarget());
+            if (association != null && join.getCondition() == null && modeOf(association) == Mode.FETCH_JOIN) {
+                if (!join.getFlags().contains(JPAQueryMixin.FETCH)) {
+                    metadata.addJoinFlag(JPAQueryMixin.FETCH);
+                }
+                fetched.add(association);
+                collectionFetchJoined |= association instanceof CollectionExpression;
+            }
+        }
+        for (Fetch fetch : fetches) {
+            if (fetch.getMode() == Mode.FETCH_JOIN && !fetched.contains(fetch.getAssociation())) {
+                metadata.addJoin(JoinType.LEFTJOIN, fetch.getAssociation());
+                metadata.addJoinFlag(JPAQueryMixin.FETCH);
+                collectionFetchJoined |= fetch.getAssociation() instanceof CollectionExpression;
+            }
+        }
+
+        metadata.setDistinct(source.isDistinct() || collectionFetchJoined);
+        metadata.setUnique(source.isUnique());
+        for (QueryFlag flag : source.getFlags()) {
+            metadata.addFlag(flag);
+        }
+        for (Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+            CountQuery.setParam(metadata, param.getKey(), param.getValue());
+        }
+        if (source.getWhere() != null) {
+            metadata.addWhere(source.getWhere());
+        }
+        source.getGroupBy().forEach(metadata::addGroupBy);
+        if (source.getHaving() != null) {
+            metadata.addHaving(source.getHaving());
+        }
+        source.getOrderBy().forEach(metadata::addOrderBy);
+        metadata.setModifiers(source.getModifiers());
+        metadata.setProjection(source.getProjection());
+        return planned;
+    }
+
+    /**
+     * 컬렉션 fetch join 과 offset/limit 를 같이 쓰면 Hibernate 가 전체를 읽어 메모리에서 페이징한다(HHH000104).
+     * 그래서 이 경우에는 루트 id 만 먼저 페이징하고, 그 id 들로 fetch join 해서 id 순서대로 다시 조립한다.
+     */
+    @SuppressWarnings("unchecked")
+    <T> List<T> fetchPage(JPAQuery<T> query, Pageable pageable, Pagination pagination,
+                          JPAQueryFactory queryFactory, EntityManager entityManager) {
+        if (!hasCollectionFetchJoin()) {
+            return fetch(pagination.apply(pageable, query), queryFactory, entityManager);
+        }
+
+        EntityPath<T> root = (EntityPath<T>) query.getMetadata().getJoins().get(0).getTarget();
+        Path<Object> rootId = idPath(root, entityManager);
+        List<Object> ids = pagination.apply(pageable, query.clone().select(rootId)).fetch();
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        PersistenceUnitUtil unitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        Map<Object, T> byId = new HashMap<>();
+        for (T row : fetch(queryFactory.selectFrom(root).where(ExpressionUtils.in(rootId, ids)), queryFactory, entityManager)) {
+            byId.put(unitUtil.getIdentifier(row), row);
+        }
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private boolean hasCollectionFetchJoin() {
+        return fetches.stream()
+                .anyMatch(fetch -> fetch.getMode() == Mode.FETCH_JOIN
+                        && fetch.getAssociation() instanceof CollectionExpression);
+    }
+
+    private static Path<Object> idPath(Path<?> entity, EntityManager entityManager) {
+        EntityType<?> entityType = entityManager.getMetamodel().entity(entity.getType());
+        String idName = entityType.getId(entityType.getIdType().getJavaType()).getName();
+        return ExpressionUtils.path(Object.class, entity, idName);
+    }
+
+    private void load(Fetch fetch, List<?> result, QueryMetadata ownerSource,
+                      JPAQueryFactory queryFactory, EntityManager entityManager) {
+        Path<?> root = fetch.getAssociation().getMetadata().getParent();
+        Class<?> ownerType = root.getType();
+        PersistenceUnitUtil unitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+
+        Set<Object> ids = new LinkedHashSet<>();
+        for (Object row : result) {
+            if (ownerType.isInstance(row)) {
+                ids.add(unitUtil.getIdentifier(row));
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        PathBuilder<?> owner = new PathBuilder<>(ownerType, OWNER_ALIAS);
+        Path<Object> ownerId = idPath(owner, entityManager);
+
+        if (fetch.getMode() == Mode.SUBSELECT && isSubselectable(ownerSource, root)) {
+            ownerSource.setProjection(idPath(root, entityManager));
+            loadOwners(fetch, owner, ExpressionUtils.in(ownerId, new JPAQuery<>(entityManager, withoutFetch(ownerSource))), queryFactory);
+            return;
+        }
+
+        int chunkSize = fetch.getMode() == Mode.BATCH ? fetch.getBatchSize() : ids.size();
+        List<Object> idList = new ArrayList<>(ids);
+        for (int from = 0; from < idList.size(); from += chunkSize) {
+            List<Object> chunk = idList.subList(from, Math.min(from + chunkSize, idList.size()));
+            loadOwners(fetch, owner, ExpressionUtils.in(ownerId, chunk), queryFactory);
+        }
+    }
+
+    private void loadOwners(Fetch fetch, PathBuilder<?> owner, Predicate condition, JPAQueryFactory queryFactory) {
+        // 이미 영속성 컨텍스트에 있는 루트를 다시 조회하면서 연관관계만 채운다.
+        JPAQuery<?> query = queryFactory.selectFrom(owner);
+        query.getMetadata().addJoin(JoinType.LEFTJOIN,
+                ExpressionUtils.path(fetch.getAssociation().getType(), owner, fetch.getAssociation().getMetadata().getName()));
+        query.getMetadata().addJoinFlag(JPAQueryMixin.FETCH);
+        query.where(condition).fetch();
+    }
+
+    private boolean isSubselectable(QueryMetadata metadata, Path<?> root) {
+        return metadata.getModifiers().getLimit() == null
+                && metadata.getModifiers().getOffset() == null
+                && metadata.getGroupBy().isEmpty()
+                && metadata.getJoins().stream().anyMatch(join -> join.getTarget().equals(root));
+    }
+
+    private QueryMetadata withoutFetch(QueryMetadata source) {
+        QueryMetadata copy = new DefaultQueryMetadata();
+        for (JoinExpression join : source.getJoins()) {
+            copy.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                copy.addJoinCondition(join.getCondition());
+            }
+            for (JoinFlag flag : join.getFlags()) {
+                if (!flag.equals(JPAQueryMixin.FETCH)) {
+                    copy.addJoinFlag(flag);
+                }
+            }
+        }
+        copy.addWhere(source.getWhere());
+        copy.setProjection(source.getProjection());
+        return copy;
+    }
+}
@@ -0,0 +1,379 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryFlag;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.support.ReplaceVisitor;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.PathType;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.SubQueryExpressionImpl;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * member.team.leader.id 처럼 연관 엔티티를 경로로 따라가면 Hibernate 는 암묵적 조인을 만들고,
+ * where 절에서는 이것이 cross join(theta join) 으로 나간다.
+ * 이런 경로를 찾아서 명시적인 inner join 으로 바꾸거나(REWRITE), 바로 예외를 던진다(FAIL).
+ *
+ * 연관 엔티티의 id 만 읽는 경로(member.team.id)는 FK 컬럼으로 해결되므로 조인이 필요 없다.
+ * 이미 같은 연관관계를 inner join 으로 선언했다면 그 alias 를 재사용한다.
+ */
+public class ImplicitJoinInspector implements QueryInspector {
+
+    public enum Mode { REWRITE, FAIL, OFF }
+
+    private static final Map<Class<?>, String> ID_PROPERTIES = new ConcurrentHashMap<>();
+
+    private final Mode mode;
+
+    public ImplicitJoinInspector(Mode mode) {
+        this.mode = mode;
+    }
+
+    @Override
+    public QueryMetadata inspect(QueryMetadata metadata) {
+        if (mode == Mode.OFF) {
+            return metadata;
+        }
+        PathCollector collector = new PathCollector().collect(metadata);
+        Set<Path<?>> implicitJoins = implicitJoins(collector.paths, declaredRoots(metadata));
+        boolean hasSubQuery = collector.hasSubQuery;
+        if (implicitJoins.isEmpty() && !hasSubQuery) {
+            return metadata;
+        }
+        if (mode == Mode.FAIL && !implicitJoins.isEmpty()) {
+            throw new QueryInspectionException("Implicit association join " + implicitJoins
+                    + " becomes a cross join. Declare it with innerJoin(path, alias) instead.");
+        }
+        return rewrite(metadata, implicitJoins);
+    }
+
+    private Set<Path<?>> implicitJoins(Set<Path<?>> paths, Set<Path<?>> declaredRoots) {
+        Set<Path<?>> joins = new LinkedHashSet<>();
+        for (Path<?> path : paths) {
+            // 서브쿼리에서 바깥 쿼리 alias 를 따라가는 경로는 이 쿼리에 조인을 붙일 수 없으므로 건드리지 않는다.
+            if (!declaredRoots.contains(path.getRoot())) {
+                continue;
+            }
+            Path<?> child = path;
+            Path<?> parent = path.getMetadata().getParent();
+            while (parent != null) {
+                if (needsJoin(parent, child)) {
+                    joins.add(parent);
+                }
+                child = parent;
+                parent = parent.getMetadata().getParent();
+            }
+        }
+        List<Path<?>> ordered = new ArrayList<>(joins);
+        // 바깥 경로부터 조인해야 안쪽 경로가 앞의 alias 를 쓸 수 있다.
+        ordered.sort(Comparator.comparingInt(ImplicitJoinInspector::depth));
+        return new LinkedHashSet<>(ordered);
+    }
+
+    private boolean needsJoin(Path<?> association, Path<?> child) {
+        if (association.getMetadata().getPathType() != PathType.PROPERTY
+                || !association.getType().isAnnotationPresent(Entity.class)) {
+            return false;
+        }
+        for (Path<?> p = association.getMetadata().getParent(); p != null; p = p.getMetadata().getParent()) {
+            PathType type = p.getMetadata().getPathType();
+            if (type != PathType.PROPERTY && type != PathType.VARIABLE) {
+                return false;
+            }
+        }
+        return !child.getMetadata().getName().equals(idProperty(association.getType()));
+    }
+
+    private QueryMetadata rewrite(QueryMetadata metadata, Set<Path<?>> implicitJoins) {
+        Map<Path<?>, Path<?>> aliases = new LinkedHashMap<>();
+        Map<Path<?>, List<Expression<?>>> pendingJoins = new LinkedHashMap<>();
+        AliasReplacer replacer = new AliasReplacer(aliases);
+
+        for (Path<?> association : implicitJoins) {
+            Expression<?> target = association.accept(replacer, null);
+            Path<?> alias = declaredInnerJoinAlias(metadata, target);
+            if (alias == null) {
+                alias = ExpressionUtils.path(association.getType(), association.toString().replace('.', '_'));
+                pendingJoins.computeIfAbsent(association.getRoot(), root -> new ArrayList<>())
+                        .add(ExpressionUtils.operation(association.getType(), Ops.ALIAS, target, alias));
+            }
+            aliases.put(association, alias);
+        }
+
+        QueryMetadata copy = new DefaultQueryMetadata();
+        List<JoinExpression> joins = metadata.getJoins();
+        for (int i = 0; i < joins.size(); i++) {
+            JoinExpression join = joins.get(i);
+            copy.addJoin(join.getType(), joinTarget(join.getTarget(), replacer));
+            if (join.getCondition() != null) {
+                copy.addJoinCondition((Predicate) join.getCondition().accept(replacer, null));
+            }
+            for (JoinFlag flag : join.getFlags()) {
+                copy.addJoinFlag(flag);
+            }
+            // from 절 항목(루트)마다 그 뒤에 붙은 조인이 끝나는 곳에서 새 조인을 넣는다.
+            boolean endOfRoot = i + 1 == joins.size() || joins.get(i + 1).getType() == JoinType.DEFAULT;
+            if (endOfRoot) {
+                for (Path<?> root : rootsOf(joins, i)) {
+                    for (Expression<?> target : pendingJoins.getOrDefault(root, List.of())) {
+                        copy.addJoin(JoinType.INNERJOIN, target);
+                    }
+                }
+            }
+        }
+
+        copy.setDistinct(metadata.isDistinct());
+        copy.setUnique(metadata.isUnique());
+        copy.setModifiers(metadata.getModifiers());
+        for (QueryFlag flag : metadata.getFlags()) {
+            copy.addFlag(flag);
+        }
+        for (Map.Entry<ParamExpression<?>, Object> param : metadata.getParams().entrySet()) {
+            setParam(copy, param.getKey(), param.getValue());
+        }
+        if (metadata.getProjection() != null) {
+            copy.setProjection(metadata.getProjection().accept(replacer, null));
+        }
+        if (metadata.getWhere() != null) {
+            copy.addWhere((Predicate) metadata.getWhere().accept(replacer, null));
+        }
+        for (Expression<?> groupBy : metadata.getGroupBy()) {
+            copy.addGroupBy(groupBy.accept(replacer, null));
+        }
+        if (metadata.getHaving() != null) {
+            copy.addHaving((Predicate) metadata.getHaving().accept(replacer, null));
+        }
+        for (OrderSpecifier<?> order : metadata.getOrderBy()) {
+            copy.addOrderBy(orderBy(order, order.getTarget().accept(replacer, null)));
+        }
+        return copy;
+    }
+
+    // 조인 대상 경로 자체는 그대로 두고 부모 경로만 alias 로 바꾼다. (team 을 team as team 으로 바꾸지 않도록)
+    private static Expression<?> joinTarget(Expression<?> target, AliasReplacer replacer) {
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            Operation<?> alias = (Operation<?>) target;
+            return ExpressionUtils.operation(alias.getType(), Ops.ALIAS,
+                    joinTarget(alias.getArg(0), replacer), alias.getArg(1));
+        }
+        if (target instanceof Path && ((Path<?>) target).getMetadata().getParent() != null) {
+            PathMetadata metadata = ((Path<?>) target).getMetadata();
+            Expression<?> parent = replacer.visit(metadata.getParent(), null);
+            if (parent != metadata.getParent()) {
+                return ExpressionUtils.path(target.getType(),
+                        new PathMetadata((Path<?>) parent, metadata.getElement(), metadata.getPathType()));
+            }
+            return target;
+        }
+        return target.accept(replacer, null);
+    }
+
+    private Path<?> declaredInnerJoinAlias(QueryMetadata metadata, Expression<?> target) {
+        for (JoinExpression join : metadata.getJoins()) {
+            if ((join.getType() == JoinType.INNERJOIN || join.getType() == JoinType.JOIN)
+                    && join.getFlags().isEmpty()
+                    && join.getTarget() instanceof Operation
+                    && ((Operation<?>) join.getTarget()).getOperator() == Ops.ALIAS
+                    && ((Operation<?>) join.getTarget()).getArg(0).equals(target)) {
+                return (Path<?>) ((Operation<?>) join.getTarget()).getArg(1);
+            }
+        }
+        return null;
+    }
+
+    private static Set<Path<?>> declaredRoots(QueryMetadata metadata) {
+        Set<Path<?>> roots = new LinkedHashSet<>();
+        List<JoinExpression> joins = metadata.getJoins();
+        for (int i = 0; i < joins.size(); i++) {
+            if (i + 1 == joins.size() || joins.get(i + 1).getType() == JoinType.DEFAULT) {
+                roots.addAll(rootsOf(joins, i));
+            }
+        }
+        return roots;
+    }
+
+    // i 번째 조인이 속한 from 항목에서 선언된 변수들
+    private static Set<Path<?>> rootsOf(List<JoinExpression> joins, int last) {
+        int first = last;
+        while (first > 0 && joins.get(first).getType() != JoinType.DEFAULT) {
+            first--;
+        }
+        Set<Path<?>> roots = new LinkedHashSet<>();
+        for (int i = first; i <= last; i++) {
+            Expression<?> target = joins.get(i).getTarget();
+            if (target instanceof Path) {
+                roots.add(((Path<?>) target).getRoot());
+            } else if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+                roots.add(((Path<?>) ((Operation<?>) target).getArg(1)).getRoot());
+            }
+        }
+        return roots;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static OrderSpecifier<?> orderBy(OrderSpecifier<?> order, Expression<?> target) {
+        return new OrderSpecifier(order.getOrder(), target, order.getNullHandling());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void setParam(QueryMetadata metadata, ParamExpression<T> param, Object value) {
+        metadata.setParam(param, (T) value);
+    }
+
+    private static int depth(Path<?> path) {
+        int depth = 0;
+        for (Path<?> p = path; p.getMetadata().getParent() != null; p = p.getMetadata().getParent()) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private static String idProperty(Class<?> entityType) {
+        return ID_PROPERTIES.computeIfAbsent(entityType, type -> {
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (field.isAnnotationPresent(Id.class)) {
+                        return field.getName();
+                    }
+                }
+            }
+            return "id";
+        });
+    }
+
+    /**
+     * 암묵적 조인 경로를 alias 로 바꾼다. 서브쿼리도 같은 규칙으로 다시 검사한다.
+     */
+    private class AliasReplacer extends ReplaceVisitor<Void> {
+
+        private final Map<Path<?>, Path<?>> aliases;
+
+        AliasReplacer(Map<Path<?>, Path<?>> aliases) {
+            this.aliases = aliases;
+        }
+
+        @Override
+        public Expression<?> visit(Path<?> expr, Void context) {
+            Path<?> alias = aliases.get(expr);
+            if (alias != null) {
+                return alias;
+            }
+            PathMetadata metadata = expr.getMetadata();
+            if (metadata.getParent() == null) {
+                return expr;
+            }
+            Expression<?> parent = visit(metadata.getParent(), context);
+            if (parent == metadata.getParent()) {
+                return expr;
+            }
+            return ExpressionUtils.path(expr.getType(),
+                    new PathMetadata((Path<?>) parent, metadata.getElement(), metadata.getPathType()));
+        }
+
+        @Override
+        public Expression<?> visit(SubQueryExpression<?> expr, Void context) {
+            SubQueryExpression<?> replaced = (SubQueryExpression<?>) super.visit(expr, context);
+            QueryMetadata inspected = inspect(replaced.getMetadata());
+            return inspected == replaced.getMetadata() ? replaced : new SubQueryExpressionImpl<>(replaced.getType(), inspected);
+        }
+    }
+
+    /**
+     * 메타데이터에 나오는 경로를 모은다. 서브쿼리는 따로 검사하므로 들어가지 않는다.
+     */
+    private static class PathCollector implements Visitor<Void, Void> {
+
+        private final Set<Path<?>> paths = new LinkedHashSet<>();
+        private boolean hasSubQuery;
+
+        PathCollector collect(QueryMetadata metadata) {
+            for (JoinExpression join : metadata.getJoins()) {
+                add(join.getTarget());
+                add(join.getCondition());
+            }
+            add(metadata.getProjection());
+            add(metadata.getWhere());
+            metadata.getGroupBy().forEach(this::add);
+            add(metadata.getHaving());
+            metadata.getOrderBy().forEach(order -> add(order.getTarget()));
+            return this;
+        }
+
+        private void add(Expression<?> expr) {
+            if (expr != null) {
+                expr.accept(this, null);
+            }
+        }
+
+        @Override
+        public Void visit(Constant<?> expr, Void context) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Void context) {
+            expr.getArgs().forEach(this::add);
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Void context) {
+            expr.getArgs().forEach(this::add);
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Void context) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Void context) {
+            paths.add(expr);
+            return null;
+        }
+
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Void context) {
+            hasSubQuery = true;
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Void context) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    add((Expression<?>) arg);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.core.QueryResults;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAProvider;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.study.querydsl.repository.support.QueryInspector.Execution;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.List;
+
+/**
+ * 직렬화할 때마다 QueryInspector 를 거치는 JPAQuery. 조회/카운트 쿼리 모두 여기를 지난다.
+ */
+public class InspectingJPAQuery<T> extends JPAQuery<T> {
+
+    private final QueryInspector inspector;
+
+    public InspectingJPAQuery(EntityManager em, QueryInspector inspector) {
+        this(em, JPAProvider.getTemplates(em), new DefaultQueryMetadata(), inspector);
+    }
+
+    public InspectingJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata, QueryInspector inspector) {
+        super(em, templates, metadata);
+        this.inspector = inspector;
+    }
+
+    @Override
+    protected JPQLSerializer serialize(boolean forCountRow, boolean validate) {
+        if (validate && queryMixin.getMetadata().getJoins().isEmpty()) {
+            throw new IllegalArgumentException("No sources given");
+        }
+        JPQLSerializer serializer = createSerializer();
+        serializer.serialize(inspector.inspect(queryMixin.getMetadata()), forCountRow, null);
+        return serializer;
+    }
+
+    @Override
+    protected Query createQuery(QueryModifiers modifiers, boolean forCount) {
+        Query query = super.createQuery(modifiers, forCount);
+        inspector.configure(getMetadata(), query, forCount);
+        return query;
+    }
+
+    @Override
+    public List<T> fetch() {
+        inspector.beforeExecute(getMetadata(), Execution.FETCH);
+        try {
+            List<T> rows = inspector.afterFetch(getMetadata(), super.fetch());
+            inspector.afterExecute(getMetadata(), Execution.FETCH);
+            return rows;
+        } catch (RuntimeException e) {
+            throw inspector.onError(getMetadata(), e);
+        }
+    }
+
+    @Override
+    public T fetchOne() {
+        inspector.beforeExecute(getMetadata(), Execution.FETCH_ONE);
+        try {
+            T row = super.fetchOne();
+            inspector.afterExecute(getMetadata(), Execution.FETCH_ONE);
+            return row;
+        } catch (RuntimeException e) {
+            throw inspector.onError(getMetadata(), e);
+        }
+    }
+
+    @Override
+    public QueryResults<T> fetchResults() {
+        inspector.beforeExecute(getMetadata(), Execution.FETCH_RESULTS);
+        try {
+            QueryResults<T> results = super.fetchResults();
+            List<T> rows = inspector.afterFetch(getMetadata(), results.getResults());
+            inspector.afterExecute(getMetadata(), Execution.FETCH_RESULTS);
+            return rows == results.getResults() ? results
+                    : new QueryResults<>(rows, results.getLimit(), results.getOffset(), results.getTotal());
+        } catch (RuntimeException e) {
+            throw inspector.onError(getMetadata(), e);
+        }
+    }
+
+    @Override
+    public long fetchCount() {
+        inspector.beforeExecute(getMetadata(), Execution.FETCH_COUNT);
+        try {
+            long count = super.fetchCount();
+            inspector.afterExecute(getMetadata(), Execution.FETCH_COUNT);
+            return count;
+        } catch (RuntimeException e) {
+            throw inspector.onError(getMetadata(), e);
+        }
+    }
+
+    @Override
+    public InspectingJPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+        InspectingJPAQuery<T> q = new InspectingJPAQuery<>(entityManager, templates, getMetadata().clone(), inspector);
+        q.clone(this);
+        return q;
+    }
+
+    @Override
+    public InspectingJPAQuery<T> clone(EntityManager entityManager) {
+        return clone(entityManager, JPAProvider.getTemplates(entityManager));
+    }
+}
@@ -0,0 +1,44 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import javax.persistence.EntityManager;
+
+public class InspectingJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager entityManager;
+    private final QueryInspector inspector;
+    private final boolean readOnly;
+    private InspectingJPAQueryFactory readOnlyFactory;
+
+    public InspectingJPAQueryFactory(EntityManager entityManager, QueryInspector inspector) {
+        this(entityManager, inspector, false);
+    }
+
+    private InspectingJPAQueryFactory(EntityManager entityManager, QueryInspector inspector, boolean readOnly) {
+        super(entityManager);
+        this.entityManager = entityManager;
+        this.inspector = inspector;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * 같은 검사기를 쓰면서 모든 쿼리에 {@link ReadOnlyQuery} 힌트를 붙이는 팩토리.
+     */
+    public InspectingJPAQueryFactory readOnly() {
+        if (readOnly) {
+            return this;
+        }
+        if (readOnlyFactory == null) {
+            readOnlyFactory = new InspectingJPAQueryFactory(entityManager, inspector, true);
+        }
+        return readOnlyFactory;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        JPAQuery<?> query = new InspectingJPAQuery<Void>(entityManager, inspector);
+        return readOnly ? ReadOnlyQuery.readOnly(query) : query;
+    }
+}
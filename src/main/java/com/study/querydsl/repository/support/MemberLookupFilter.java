@@ -0,0 +1,89 @@
+package com.study.querydsl.repository.support;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 존재하는 member_id 와 username 을 담은 Bloom filter. false 면 DB 에 없는 것이 확실하므로 조회를 건너뛴다.
+ * 기동할 때 전체를 한 번 채우고(그 전까지는 모두 true), 이후에는 새로 생기거나 바뀐 회원을 더하기만 한다.
+ * 지운 회원이나 예전 username 은 빠지지 않으므로 오탐이 조금 늘 뿐 결과가 틀리지는 않는다.
+ *
+ * 영속성 컨텍스트로 저장한 회원은 flush 될 때 더해지므로, 현재 영속성 컨텍스트에 flush 할 변경이 남아 있으면
+ * 필터에 없다고 나와도 DB 를 조회하게 한다.
+ */
+public class MemberLookupFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberLookupFilter.class);
+
+    private final boolean enabled;
+    private final EntityManagerFactory entityManagerFactory;
+    private final long expectedMembers;
+    private final BloomFilter ids;
+    private final BloomFilter usernames;
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicBoolean oversizeWarned = new AtomicBoolean();
+    private volatile boolean ready;
+
+    public MemberLookupFilter(EntityManagerFactory entityManagerFactory, long expectedMembers, double falsePositiveRate) {
+        this(true, entityManagerFactory, expectedMembers, BloomFilter.create(expectedMembers, falsePositiveRate),
+                BloomFilter.create(expectedMembers, falsePositiveRate));
+    }
+
+    private MemberLookupFilter(boolean enabled, EntityManagerFactory entityManagerFactory, long expectedMembers,
+                               BloomFilter ids, BloomFilter usernames) {
+        this.enabled = enabled;
+        this.entityManagerFactory = entityManagerFactory;
+        this.expectedMembers = expectedMembers;
+        this.ids = ids;
+        this.usernames = usernames;
+    }
+
+    // 항상 DB 를 조회하게 한다.
+    public static MemberLookupFilter disabled() {
+        return new MemberLookupFilter(false, null, 0, null, null);
+    }
+
+    public void put(Long memberId, String username) {
+        if (!enabled) {
+            return;
+        }
+        if (memberId != null) {
+            ids.put(memberId);
+            if (inserted.incrementAndGet() > expectedMembers && oversizeWarned.compareAndSet(false, true)) {
+                log.warn("member lookup filter holds more than {} members, false positive rate is rising", expectedMembers);
+            }
+        }
+        if (username != null) {
+            usernames.put(username);
+        }
+    }
+
+    public void putAll(Map<Long, String> usernamesById) {
+        usernamesById.forEach(this::put);
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public boolean mightContainId(Long memberId) {
+        return !enabled || !ready || memberId == null || ids.mightContain(memberId) || hasPendingWrites();
+    }
+
+    public boolean mightContainUsername(String username) {
+        return !enabled || !ready || username == null || usernames.mightContain(username) || hasPendingWrites();
+    }
+
+    private boolean hasPendingWrites() {
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        return entityManager != null && entityManager.unwrap(Session.class).isDirty();
+    }
+}
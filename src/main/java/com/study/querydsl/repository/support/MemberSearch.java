@@ -0,0 +1,99 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.QMemberTeamDto;
+
+import java.util.Set;
+
+import static com.study.querydsl.domain.QMember.member;
+import static com.study.querydsl.domain.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * MemberSearchCondition 으로 MemberTeamDto 검색 쿼리를 만든다.
+ * 팀 id 는 member.team_id 칼럼으로 거르고 돌려주므로, teamIdOnly 로 팀 이름이 필요 없다고 하면 팀 이름을 id 로 바꿀 수 없을 때만 team 을 조인한다.
+ */
+public final class MemberSearch {
+
+    private MemberSearch() {
+    }
+
+    public static JPAQuery<MemberTeamDto> memberTeams(JPAQueryFactory queryFactory, MemberSearchCondition condition) {
+        return memberTeams(queryFactory, condition, TeamNameDictionary.disabled());
+    }
+
+    /**
+     * 팀 이름 조건은 사전으로 팀 id 로 바꿔서 member.team_id 로 거른다. 사전을 쓸 수 없을 때만 team 을 조인해 이름으로 거른다.
+     */
+    public static JPAQuery<MemberTeamDto> memberTeams(JPAQueryFactory queryFactory, MemberSearchCondition condition,
+                                                      TeamNameDictionary teamNameDictionary) {
+        Set<Long> teamIds = hasText(condition.getTeamName()) ? teamNameDictionary.idsOf(condition.getTeamName()) : null;
+        JPAQuery<MemberTeamDto> query;
+        if (!condition.isTeamIdOnly() || (hasText(condition.getTeamName()) && teamIds == null)) {
+            query = queryFactory
+                    .select(new QMemberTeamDto(
+                            member.id.as("memberId"),
+                            member.username,
+                            member.age,
+                            team.id.as("teamId"),
+                            team.name.as("teamName")
+                    ))
+                    .from(member)
+                    .leftJoin(member.team, team);
+        } else {
+            query = queryFactory
+                    .select(new QMemberTeamDto(
+                            member.id.as("memberId"),
+                            member.username,
+                            member.age,
+                            member.team.id.as("teamId")
+                    ))
+                    .from(member);
+        }
+        return query.where(
+                usernameEq(condition.getUsername()),
+                teamIdEq(condition.getTeamId()),
+                teamIds != null ? teamIdIn(teamIds) : teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        );
+    }
+
+    public static BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+
+    // member.team.id 는 FK 칼럼이라 조인 없이 거를 수 있다.
+    public static BooleanExpression teamIdEq(Long teamId) {
+        return teamId != null ? member.team.id.eq(teamId) : null;
+    }
+
+    public static BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    public static BooleanExpression teamNameEq(String teamName, TeamNameDictionary teamNameDictionary) {
+        if (!hasText(teamName)) {
+            return null;
+        }
+        Set<Long> teamIds = teamNameDictionary.idsOf(teamName);
+        return teamIds != null ? teamIdIn(teamIds) : team.name.eq(teamName);
+    }
+
+    // 빈 집합이면 JPQL 에서 1 = 2 가 되어 DB 는 행을 읽지 않고 빈 결과를 돌려준다.
+    private static BooleanExpression teamIdIn(Set<Long> teamIds) {
+        return member.team.id.in(teamIds);
+    }
+
+    public static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    public static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
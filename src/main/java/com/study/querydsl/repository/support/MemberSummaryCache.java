@@ -0,0 +1,185 @@
+package com.study.querydsl.repository.support;
+
+import com.study.querydsl.dto.MemberSummary;
+import com.study.querydsl.dto.MemberSummaryCacheStats;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * username -> 회원 요약 목록을 담는 LRU 캐시. 없는 username 도 빈 목록으로 negativeTtl 동안 캐시한다.
+ *
+ * username 이 바뀌면 예전 username 항목도 지워야 하므로 member_id 로 그 회원이 담긴 항목을 찾아 지운다.
+ * 트랜잭션 안에서 지우면 커밋(또는 롤백) 뒤에 한 번 더 지워서, 그 사이 다른 스레드가 커밋 전 값을 다시 담아 둔 것도 버린다.
+ * 로드하는 동안 무효화가 있었으면 그 로드 결과는 담지 않는다. 로드는 요청의 QueryGuardrail 한도 밖에서 한다.
+ */
+public class MemberSummaryCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, Set<String>> usernamesByMemberId = new HashMap<>();
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public MemberSummaryCache(int maxEntries, Duration ttl, Duration negativeTtl) {
+        Assert.isTrue(maxEntries > 0, "maxEntries must be positive");
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+    }
+
+    public List<MemberSummary> get(String username, Function<String, List<MemberSummary>> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(username);
+            if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+                hits.increment();
+                if (entry.summaries.isEmpty()) {
+                    negativeHits.increment();
+                }
+                return entry.summaries;
+            }
+            if (entry != null) {
+                remove(username);
+            }
+            loadGeneration = generation;
+        }
+        misses.increment();
+        List<MemberSummary> summaries;
+        try (QueryGuardrail.Suspension suspension = QueryGuardrail.suspend()) {
+            summaries = Collections.unmodifiableList(loader.apply(username));
+        }
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                put(username, summaries);
+            }
+        }
+        return summaries;
+    }
+
+    public void invalidate(Long memberId, String username) {
+        invalidate(Collections.singletonMap(memberId, username));
+    }
+
+    /**
+     * 바뀐 회원의 새 username 과, 그 회원이 담겨 있던 예전 username 항목을 지운다.
+     */
+    public void invalidate(Map<Long, String> usernamesById) {
+        if (usernamesById.isEmpty()) {
+            return;
+        }
+        Map<Long, String> copy = new HashMap<>(usernamesById);
+        invalidateNow(copy);
+        afterCompletion(() -> invalidateNow(copy));
+    }
+
+    public void invalidateMembers(Collection<Long> memberIds) {
+        Map<Long, String> byId = new HashMap<>();
+        memberIds.forEach(memberId -> byId.put(memberId, null));
+        invalidate(byId);
+    }
+
+    public void invalidateAll() {
+        clear();
+        afterCompletion(this::clear);
+    }
+
+    public MemberSummaryCacheStats stats() {
+        int size;
+        synchronized (this) {
+            size = entries.size();
+        }
+        return new MemberSummaryCacheStats(hits.sum(), negativeHits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private synchronized void invalidateNow(Map<Long, String> usernamesById) {
+        generation++;
+        usernamesById.forEach((memberId, username) -> {
+            if (username != null) {
+                remove(username);
+            }
+            Set<String> cached = usernamesByMemberId.get(memberId);
+            if (cached != null) {
+                new HashSet<>(cached).forEach(this::remove);
+            }
+        });
+    }
+
+    private synchronized void clear() {
+        generation++;
+        entries.clear();
+        usernamesByMemberId.clear();
+    }
+
+    private void put(String username, List<MemberSummary> summaries) {
+        long ttl = summaries.isEmpty() ? negativeTtlNanos : ttlNanos;
+        entries.put(username, new Entry(summaries, System.nanoTime() + ttl));
+        for (MemberSummary summary : summaries) {
+            usernamesByMemberId.computeIfAbsent(summary.getMemberId(), key -> new HashSet<>()).add(username);
+        }
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries) {
+            Map.Entry<String, Entry> evicted = eldest.next();
+            eldest.remove();
+            unindex(evicted.getKey(), evicted.getValue());
+            evictions.increment();
+        }
+    }
+
+    private void remove(String username) {
+        Entry removed = entries.remove(username);
+        if (removed != null) {
+            unindex(username, removed);
+        }
+    }
+
+    private void unindex(String username, Entry removed) {
+        for (MemberSummary summary : removed.summaries) {
+            Set<String> cached = usernamesByMemberId.get(summary.getMemberId());
+            if (cached != null && cached.remove(username) && cached.isEmpty()) {
+                usernamesByMemberId.remove(summary.getMemberId());
+            }
+        }
+    }
+
+    private void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private static class Entry {
+        private final List<MemberSummary> summaries;
+        private final long expiresAt;
+
+        Entry(List<MemberSummary> summaries, long expiresAt) {
+            this.summaries = summaries;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -3,6 +3,11 @@ package com.study.querydsl.repository.support;
 import com.querydsl.core.types.NullExpression;
 import com.querydsl.core.types.Order;
 import com.querydsl.core.types.OrderSpecifier;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import javax.persistence.EntityManager;
 
 public class OrderByNull extends OrderSpecifier {
 
@@ -11,4 +16,13 @@ public class OrderByNull extends OrderSpecifier {
     private OrderByNull(){
         super(Order.ASC, NullExpression.DEFAULT, NullHandling.Default);
     }
+
+    // group by 결과를 암묵적으로 정렬하는 MySQL 계열에서만 order by null 로 filesort 를 없앨 수 있다.
+    public static boolean isSupported(EntityManager entityManager) {
+        Dialect dialect = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect();
+        return dialect instanceof MySQLDialect;
+    }
 }
@@ -0,0 +1,32 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.support.Querydsl;
+
+/**
+ * Pageable 을 쿼리에 적용한다. SortTranslator 가 있으면 허용된 정렬만 미리 만든 OrderSpecifier 로 붙이고,
+ * 없으면 Spring Data 의 Querydsl.applyPagination 에 맡긴다.
+ */
+class Pagination {
+
+    private final Querydsl querydsl;
+    private final SortTranslator sortTranslator;
+
+    Pagination(Querydsl querydsl, SortTranslator sortTranslator) {
+        this.querydsl = querydsl;
+        this.sortTranslator = sortTranslator;
+    }
+
+    <T> JPAQuery<T> apply(Pageable pageable, JPAQuery<T> query) {
+        if (sortTranslator == null) {
+            querydsl.applyPagination(pageable, query);
+            return query;
+        }
+        if (pageable.isPaged()) {
+            query.offset(pageable.getOffset());
+            query.limit(pageable.getPageSize());
+        }
+        return query.orderBy(sortTranslator.translate(pageable.getSort()));
+    }
+}
@@ -0,0 +1,131 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.Entity;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * docs/woowahwan.md 에서 피하자고 한 쿼리 작성 방식을 실행 시점에 잡아낸다.
+ *
+ * <ul>
+ *     <li>FETCH_RESULTS: fetchResults() 는 조인이 걸린 원본 쿼리 그대로 count 를 한 번 더 날린다.</li>
+ *     <li>ENTITY_IN_PROJECTION: DTO / Tuple 안에 엔티티를 넣으면 엔티티의 모든 칼럼을 읽는다.</li>
+ *     <li>UNBOUNDED_FETCH: limit 없는 fetch() 는 조건이 있어도 데이터가 늘어나는 만큼 끝없이 읽는다.</li>
+ *     <li>LARGE_OFFSET: offset 이 크면 offset + limit 만큼 읽고 버린다. No Offset 방식을 쓰자.</li>
+ * </ul>
+ *
+ * REPORT 는 호출 위치와 규칙마다 한 번만 경고를 남기고, FAIL 은 QueryInspectionException 을 던진다.
+ */
+public class QueryAntiPatternLinter implements QueryInspector {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryAntiPatternLinter.class);
+    private static final String CALL_SITE_PACKAGE = "com.study.querydsl";
+    private static final String SUPPORT_PACKAGE = QueryAntiPatternLinter.class.getPackage().getName();
+
+    public enum Mode { REPORT, FAIL, OFF }
+
+    public enum Rule { FETCH_RESULTS, ENTITY_IN_PROJECTION, UNBOUNDED_FETCH, LARGE_OFFSET }
+
+    private final Mode mode;
+    private final long maxOffset;
+    // 호출 위치 + 규칙 -> 메시지
+    private final Map<String, String> violations = new ConcurrentHashMap<>();
+
+    public QueryAntiPatternLinter(Mode mode, long maxOffset) {
+        this.mode = mode;
+        this.maxOffset = maxOffset;
+    }
+
+    @Override
+    public QueryMetadata inspect(QueryMetadata metadata) {
+        return metadata;
+    }
+
+    @Override
+    public void beforeExecute(QueryMetadata metadata, Execution execution) {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        Map<Rule, String> found = lint(metadata, execution);
+        if (found.isEmpty()) {
+            return;
+        }
+        String callSite = callSite();
+        if (mode == Mode.FAIL) {
+            throw new QueryInspectionException("Query anti-pattern at " + callSite + ": " + found);
+        }
+        found.forEach((rule, message) -> {
+            if (violations.putIfAbsent(callSite + " " + rule, message) == null) {
+                log.warn("query anti-pattern at {}: {} {}", callSite, rule, message);
+            }
+        });
+    }
+
+    /**
+     * 지금까지 REPORT 로 남긴 위반. 키는 "호출 위치 규칙" 이다.
+     */
+    public Map<String, String> getViolations() {
+        return Collections.unmodifiableMap(violations);
+    }
+
+    public void clear() {
+        violations.clear();
+    }
+
+    Map<Rule, String> lint(QueryMetadata metadata, Execution execution) {
+        Map<Rule, String> found = new EnumMap<>(Rule.class);
+        if (execution == Execution.FETCH_RESULTS) {
+            found.put(Rule.FETCH_RESULTS, "use fetch() with a separate count query (PageableExecutionUtils)");
+        }
+        if (execution == Execution.FETCH || execution == Execution.FETCH_RESULTS) {
+            Expression<?> projection = metadata.getProjection();
+            if (projection instanceof FactoryExpression && hasEntity(projection)) {
+                found.put(Rule.ENTITY_IN_PROJECTION, "select only the columns you need from " + projection);
+            }
+            Long limit = metadata.getModifiers().getLimit();
+            Long offset = metadata.getModifiers().getOffset();
+            if (execution == Execution.FETCH && limit == null) {
+                found.put(Rule.UNBOUNDED_FETCH, "fetch() without limit reads every matching row");
+            }
+            if (offset != null && offset > maxOffset) {
+                found.put(Rule.LARGE_OFFSET, "offset " + offset + " > " + maxOffset + ", use a no-offset (keyset) query");
+            }
+        }
+        return found;
+    }
+
+    private boolean hasEntity(Expression<?> expr) {
+        if (expr instanceof Path) {
+            return expr.getType().isAnnotationPresent(Entity.class);
+        }
+        if (expr instanceof FactoryExpression) {
+            return ((FactoryExpression<?>) expr).getArgs().stream().anyMatch(this::hasEntity);
+        }
+        if (expr instanceof Operation && ((Operation<?>) expr).getOperator() == Ops.ALIAS) {
+            return hasEntity(((Operation<?>) expr).getArg(0));
+        }
+        return false;
+    }
+
+    private String callSite() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(CALL_SITE_PACKAGE)
+                        && !frame.getClassName().startsWith(SUPPORT_PACKAGE + ".")
+                        && !frame.getClassName().contains("$$"))
+                .findFirst()
+                .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1)
+                        + "." + frame.getMethodName())
+                .orElse("unknown"));
+    }
+}
@@ -0,0 +1,153 @@
+package com.study.querydsl.repository.support;
+
+import com.study.querydsl.config.QueryGuardrailProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 최근 쿼리들의 느린 호출 / 타임아웃 비율로 DB 포화를 판단한다.
+ * 열리면 openDuration 동안 비싼 검색을 거절하고, 그 뒤에는 trialCalls 만큼만 통과시켜서 다 성공하면 닫는다.
+ * 시험 요청의 성공 여부는 요청이 끝날 때({@link #completeTrial}) 판단하고, 쿼리를 실행하지 않은 시험 요청은 기회를 돌려받는다.
+ */
+public class QueryCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final QueryGuardrailProperties.CircuitBreaker properties;
+    private final LongSupplier nanoClock;
+    // 최근 호출의 실패 여부 (원형 버퍼)
+    private final boolean[] window;
+    private int calls;
+    private int next;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    // 반쯤 열릴 때마다 올린다. 이전 회차의 시험 요청이 늦게 끝나도 세지 않는다.
+    private long trialRound;
+    private int trialsLeft;
+    private int trialSuccesses;
+
+    public QueryCircuitBreaker(QueryGuardrailProperties.CircuitBreaker properties) {
+        this(properties, System::nanoTime);
+    }
+
+    QueryCircuitBreaker(QueryGuardrailProperties.CircuitBreaker properties, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.window = new boolean[properties.getWindowSize()];
+    }
+
+    /**
+     * 비싼 요청을 시작해도 되는지. 반쯤 열린 상태에서는 시험 호출 수만큼만 시험 허가를 내준다.
+     */
+    public synchronized Permit tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAt < properties.getOpenDuration().toNanos()) {
+                return Permit.REJECTED;
+            }
+            state = State.HALF_OPEN;
+            trialRound++;
+            trialsLeft = properties.getTrialCalls();
+            trialSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsLeft == 0) {
+                return Permit.REJECTED;
+            }
+            trialsLeft--;
+            return new Permit(true, trialRound);
+        }
+        return Permit.ALLOWED;
+    }
+
+    /**
+     * 시험 허가로 시작한 요청이 끝났을 때 부른다. 그동안 실패한 쿼리가 있었으면 record 가 이미 다시 열었다.
+     */
+    public synchronized void completeTrial(Permit permit, boolean executed) {
+        if (!permit.isTrial() || state != State.HALF_OPEN || permit.trialRound != trialRound) {
+            return;
+        }
+        if (!executed) {
+            trialsLeft++;
+        } else if (++trialSuccesses >= properties.getTrialCalls()) {
+            reset(State.CLOSED);
+        }
+    }
+
+    /**
+     * 쿼리 실행 한 번(fetch, fetchOne, fetchCount, 실패 포함)의 시간과 타임아웃 여부.
+     */
+    public synchronized void record(long elapsedNanos, boolean timedOut) {
+        boolean failure = timedOut || elapsedNanos >= properties.getSlowCallThreshold().toNanos();
+        if (state == State.HALF_OPEN) {
+            if (failure) {
+                open();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return;
+        }
+        if (calls == window.length) {
+            failures -= window[next] ? 1 : 0;
+        } else {
+            calls++;
+        }
+        window[next] = failure;
+        failures += failure ? 1 : 0;
+        next = (next + 1) % window.length;
+        if (calls >= properties.getMinimumCalls() && failures >= properties.getFailureRateThreshold() * calls) {
+            open();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 다시 시도해 볼 수 있을 때까지 남은 초. 열려 있지 않으면 0.
+     */
+    public synchronized long retryAfterSeconds() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        long remaining = properties.getOpenDuration().toNanos() - (nanoClock.getAsLong() - openedAt);
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    private void open() {
+        reset(State.OPEN);
+        openedAt = nanoClock.getAsLong();
+    }
+
+    private void reset(State state) {
+        this.state = state;
+        calls = 0;
+        next = 0;
+        failures = 0;
+    }
+
+    public static final class Permit {
+        private static final Permit ALLOWED = new Permit(true, -1);
+        private static final Permit REJECTED = new Permit(false, -1);
+
+        private final boolean granted;
+        private final long trialRound;
+
+        private Permit(boolean granted, long trialRound) {
+            this.granted = granted;
+            this.trialRound = trialRound;
+        }
+
+        public boolean isGranted() {
+            return granted;
+        }
+
+        public boolean isTrial() {
+            return trialRound >= 0;
+        }
+    }
+}
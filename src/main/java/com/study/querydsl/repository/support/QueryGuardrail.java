@@ -0,0 +1,313 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.MapExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.study.querydsl.config.QueryGuardrailProperties;
+import com.study.querydsl.repository.support.QueryCircuitBreaker.Permit;
+import com.study.querydsl.repository.support.QueryGuardrailException.Reason;
+import org.hibernate.annotations.QueryHints;
+
+import javax.persistence.Entity;
+import javax.persistence.Query;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청 하나({@link Scope}) 안에서 실행되는 Querydsl 조회에 한도를 건다.
+ *
+ * <ul>
+ *     <li>건수: 목록 조회(fetch, fetchResults)에 limit 가 없거나 maxRows 보다 크면 maxRows + 1 건까지만 읽고,
+ *     넘친 결과는 잘라내거나(TRUNCATE) 예외를 던진다(FAIL). fetchOne / fetchFirst / fetchCount 는 건드리지 않는다.</li>
+ *     <li>메모리: 결과 한 건의 크기를 projection 으로 추정해서, 남은 예산으로 읽을 수 있는 건수까지만 읽는다.</li>
+ *     <li>시간: 요청의 남은 시간을 쿼리 타임아웃 힌트로 건다. 다 쓰면 다음 쿼리는 실행하지 않는다.</li>
+ *     <li>서킷: 모든 실행(목록, 단건, count, 실패 포함)의 시간과 타임아웃을 {@link QueryCircuitBreaker} 에 기록하고,
+ *     열려 있으면 shed 엔드포인트의 요청을 거절한다. 시험 허가로 연 Scope 는 닫을 때 시험 결과를 돌려준다.</li>
+ * </ul>
+ *
+ * Scope 밖(배치, 시작 시 적재 등)의 쿼리는 건드리지 않는다. 여러 요청이 같이 쓰는 캐시를 채우는 쿼리는
+ * {@link #suspend()} 로 한도 밖에서 실행해서, 한 요청의 한도로 잘린 결과가 캐시에 남지 않게 한다.
+ */
+public class QueryGuardrail implements QueryInspector {
+
+    public enum Mode { TRUNCATE, FAIL }
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private final QueryGuardrailProperties properties;
+    private final QueryCircuitBreaker circuitBreaker;
+
+    public QueryGuardrail(QueryGuardrailProperties properties, QueryCircuitBreaker circuitBreaker) {
+        this.properties = properties;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public static Scope currentScope() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 현재 스레드에서 endpoint 의 한도로 Scope 를 연다. 서킷이 열려 있고 shed 엔드포인트면 바로 거절한다.
+     */
+    public Scope open(String endpoint) {
+        QueryGuardrailProperties.Endpoint settings = properties.endpoint(endpoint);
+        Permit permit = settings.isShed() ? circuitBreaker.tryAcquire() : null;
+        if (permit != null && !permit.isGranted()) {
+            throw new QueryGuardrailException(Reason.CIRCUIT_OPEN,
+                    "Database is saturated, " + endpoint + " is rejected for " + circuitBreaker.retryAfterSeconds() + "s");
+        }
+        int maxRows = settings.getMaxRows() != null ? settings.getMaxRows() : properties.getMaxRows();
+        Duration timeout = settings.getTimeout() != null ? settings.getTimeout() : properties.getTimeout();
+        Scope scope = new Scope(endpoint, maxRows, properties.getMemoryBudget().toBytes(),
+                System.nanoTime() + timeout.toNanos(), CURRENT.get(),
+                circuitBreaker, permit != null && permit.isTrial() ? permit : null);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * 닫을 때까지 현재 스레드의 Scope 를 떼어 둔다. 그 사이의 쿼리에는 한도를 걸지 않는다.
+     */
+    public static Suspension suspend() {
+        Suspension suspension = new Suspension(CURRENT.get());
+        CURRENT.remove();
+        return suspension;
+    }
+
+    public QueryCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    @Override
+    public QueryMetadata inspect(QueryMetadata metadata) {
+        return metadata;
+    }
+
+    @Override
+    public void beforeExecute(QueryMetadata metadata, Execution execution) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            scope.execution = execution;
+            scope.executing = true;
+            scope.startedAt = System.nanoTime();
+            scope.pending = null;
+        }
+    }
+
+    @Override
+    public void configure(QueryMetadata metadata, Query query, boolean forCount) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return;
+        }
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(scope.deadline - System.nanoTime());
+        if (remainingMillis <= 0) {
+            // DB 에 보내지 않은 쿼리는 서킷에 기록하지 않는다.
+            scope.executing = false;
+            throw new QueryGuardrailException(Reason.TIMEOUT, scope.endpoint + " used up its query time");
+        }
+        query.setHint(QueryHints.TIMEOUT_JPA, (int) Math.min(Integer.MAX_VALUE, remainingMillis));
+        if (forCount || (scope.execution != Execution.FETCH && scope.execution != Execution.FETCH_RESULTS)) {
+            return;
+        }
+        long rowBytes = estimateRowBytes(metadata.getProjection());
+        int cap = (int) Math.min(scope.maxRows, Math.max(0, scope.remainingBytes / rowBytes));
+        Long limit = metadata.getModifiers().getLimit();
+        if (limit != null && limit <= cap) {
+            scope.pending = new Pending(Integer.MAX_VALUE, rowBytes);
+            return;
+        }
+        // 컬렉션 fetch join 에 최대 건수를 걸면 Hibernate 가 전부 읽어 메모리에서 자르므로(HHH000104) 결과만 자른다.
+        if (!hasCollectionFetchJoin(metadata)) {
+            query.setMaxResults(cap + 1);
+        }
+        scope.pending = new Pending(cap, rowBytes);
+    }
+
+    @Override
+    public <R> List<R> afterFetch(QueryMetadata metadata, List<R> result) {
+        Scope scope = CURRENT.get();
+        if (scope == null || scope.pending == null) {
+            return result;
+        }
+        Pending pending = scope.pending;
+        scope.pending = null;
+        if (result.size() <= pending.cap) {
+            scope.remainingBytes -= result.size() * pending.rowBytes;
+            return result;
+        }
+        Reason reason = pending.cap < scope.maxRows ? Reason.MEMORY_BUDGET : Reason.ROW_LIMIT;
+        if (properties.getMode() == Mode.FAIL) {
+            throw new QueryGuardrailException(reason,
+                    "Query for " + scope.endpoint + " returned more than " + pending.cap + " rows (" + reason + "), narrow the search");
+        }
+        scope.truncated = true;
+        scope.rowLimit = Math.min(scope.rowLimit, pending.cap);
+        scope.remainingBytes -= pending.cap * pending.rowBytes;
+        return new ArrayList<>(result.subList(0, pending.cap));
+    }
+
+    @Override
+    public void afterExecute(QueryMetadata metadata, Execution execution) {
+        Scope scope = CURRENT.get();
+        if (scope != null) {
+            record(scope, false);
+        }
+    }
+
+    @Override
+    public RuntimeException onError(QueryMetadata metadata, RuntimeException e) {
+        Scope scope = CURRENT.get();
+        if (scope == null) {
+            return e;
+        }
+        scope.pending = null;
+        boolean timedOut = isTimeout(e);
+        record(scope, timedOut);
+        if (!timedOut || e instanceof QueryGuardrailException) {
+            return e;
+        }
+        return new QueryGuardrailException(Reason.TIMEOUT, "Query for " + scope.endpoint + " timed out", e);
+    }
+
+    private void record(Scope scope, boolean timedOut) {
+        if (!scope.executing) {
+            return;
+        }
+        scope.executing = false;
+        scope.executions++;
+        circuitBreaker.record(System.nanoTime() - scope.startedAt, timedOut);
+    }
+
+    private static boolean hasCollectionFetchJoin(QueryMetadata metadata) {
+        for (JoinExpression join : metadata.getJoins()) {
+            Path<?> association = CountQuery.association(join.getTarget());
+            if (join.getFlags().contains(JPAQueryMixin.FETCH)
+                    && (association instanceof CollectionExpression || association instanceof MapExpression)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long estimateRowBytes(Expression<?> projection) {
+        if (projection == null || projection.getType().isAnnotationPresent(Entity.class)) {
+            return properties.getEstimatedEntityBytes();
+        }
+        if (projection instanceof FactoryExpression) {
+            long bytes = 0;
+            for (Expression<?> arg : ((FactoryExpression<?>) projection).getArgs()) {
+                bytes += estimateRowBytes(arg);
+            }
+            return Math.max(bytes, properties.getEstimatedColumnBytes());
+        }
+        return properties.getEstimatedColumnBytes();
+    }
+
+    private static boolean isTimeout(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof javax.persistence.QueryTimeoutException
+                    || cause instanceof org.hibernate.QueryTimeoutException
+                    || cause instanceof SQLTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Pending {
+        private final int cap;
+        private final long rowBytes;
+
+        Pending(int cap, long rowBytes) {
+            this.cap = cap;
+            this.rowBytes = rowBytes;
+        }
+    }
+
+    public static class Suspension implements AutoCloseable {
+        private final Scope suspended;
+
+        private Suspension(Scope suspended) {
+            this.suspended = suspended;
+        }
+
+        @Override
+        public void close() {
+            if (suspended != null) {
+                CURRENT.set(suspended);
+            }
+        }
+    }
+
+    /**
+     * 요청 하나의 남은 한도. 닫으면 바깥 Scope 로 돌아간다.
+     */
+    public static class Scope implements AutoCloseable {
+        private final String endpoint;
+        private final int maxRows;
+        private final long deadline;
+        private final Scope previous;
+        // 반쯤 열린 서킷에서 시험 허가로 연 Scope 면 닫을 때 결과를 돌려준다.
+        private final QueryCircuitBreaker circuitBreaker;
+        private final Permit trial;
+        private long remainingBytes;
+        private long startedAt;
+        private Execution execution;
+        private boolean executing;
+        private int executions;
+        private Pending pending;
+        private boolean truncated;
+        private int rowLimit = Integer.MAX_VALUE;
+
+        private Scope(String endpoint, int maxRows, long memoryBudget, long deadline, Scope previous,
+                      QueryCircuitBreaker circuitBreaker, Permit trial) {
+            this.endpoint = endpoint;
+            this.maxRows = maxRows;
+            this.remainingBytes = memoryBudget;
+            this.deadline = deadline;
+            this.previous = previous;
+            this.circuitBreaker = circuitBreaker;
+            this.trial = trial;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        /**
+         * 잘라낸 결과가 있었는지
+         */
+        public boolean isTruncated() {
+            return truncated;
+        }
+
+        /**
+         * 잘라낸 결과의 건수. 잘라내지 않았으면 의미가 없다.
+         */
+        public int getRowLimit() {
+            return rowLimit;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+            if (trial != null) {
+                // 쿼리를 하나도 실행하지 않았으면 시험 기회를 돌려준다.
+                circuitBreaker.completeTrial(trial, executions > 0);
+            }
+        }
+    }
+}
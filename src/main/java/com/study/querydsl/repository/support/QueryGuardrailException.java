@@ -0,0 +1,21 @@
+package com.study.querydsl.repository.support;
+
+public class QueryGuardrailException extends RuntimeException {
+
+    public enum Reason { ROW_LIMIT, MEMORY_BUDGET, TIMEOUT, CIRCUIT_OPEN }
+
+    private final Reason reason;
+
+    public QueryGuardrailException(Reason reason, String message) {
+        this(reason, message, null);
+    }
+
+    public QueryGuardrailException(Reason reason, String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,8 @@
+package com.study.querydsl.repository.support;
+
+public class QueryInspectionException extends RuntimeException {
+
+    public QueryInspectionException(String message) {
+        super(message);
+    }
+}
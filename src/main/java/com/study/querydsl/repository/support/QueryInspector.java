@@ -0,0 +1,88 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+
+import javax.persistence.Query;
+import java.util.List;
+
+/**
+ * Querydsl 쿼리가 JPQL 로 직렬화되기 직전에 메타데이터를 검사한다.
+ * 고쳐야 하면 새 메타데이터를 돌려주고, 원본 쿼리의 메타데이터는 바꾸지 않는다.
+ */
+@FunctionalInterface
+public interface QueryInspector {
+
+    enum Execution { FETCH, FETCH_ONE, FETCH_RESULTS, FETCH_COUNT }
+
+    QueryMetadata inspect(QueryMetadata metadata);
+
+    /**
+     * 쿼리를 어떤 방식(fetch, fetchResults ...)으로 실행하는지는 메타데이터에 남지 않으므로 실행 직전에 따로 알려준다.
+     */
+    default void beforeExecute(QueryMetadata metadata, Execution execution) {
+    }
+
+    /**
+     * JPA Query 를 만든 직후, 실행하기 전에 힌트나 최대 건수를 조정한다.
+     */
+    default void configure(QueryMetadata metadata, Query query, boolean forCount) {
+    }
+
+    /**
+     * 조회 결과를 돌려주기 전에 확인하고, 필요하면 잘라낸 결과를 돌려준다.
+     */
+    default <R> List<R> afterFetch(QueryMetadata metadata, List<R> result) {
+        return result;
+    }
+
+    /**
+     * 실행이 끝났을 때 불린다. afterFetch 와 달리 fetchOne / fetchCount 도 거친다.
+     */
+    default void afterExecute(QueryMetadata metadata, Execution execution) {
+    }
+
+    /**
+     * 실행이 실패했을 때 불린다. 돌려준 예외를 대신 던진다.
+     */
+    default RuntimeException onError(QueryMetadata metadata, RuntimeException e) {
+        return e;
+    }
+
+    default QueryInspector andThen(QueryInspector next) {
+        QueryInspector first = this;
+        return new QueryInspector() {
+            @Override
+            public QueryMetadata inspect(QueryMetadata metadata) {
+                return next.inspect(first.inspect(metadata));
+            }
+
+            @Override
+            public void beforeExecute(QueryMetadata metadata, Execution execution) {
+                first.beforeExecute(metadata, execution);
+                next.beforeExecute(metadata, execution);
+            }
+
+            @Override
+            public void configure(QueryMetadata metadata, Query query, boolean forCount) {
+                first.configure(metadata, query, forCount);
+                next.configure(metadata, query, forCount);
+            }
+
+            @Override
+            public <R> List<R> afterFetch(QueryMetadata metadata, List<R> result) {
+                return next.afterFetch(metadata, first.afterFetch(metadata, result));
+            }
+
+            @Override
+            public void afterExecute(QueryMetadata metadata, Execution execution) {
+                first.afterExecute(metadata, execution);
+                next.afterExecute(metadata, execution);
+            }
+
+            @Override
+            public RuntimeException onError(QueryMetadata metadata, RuntimeException e) {
+                return next.onError(metadata, first.onError(metadata, e));
+            }
+        };
+    }
+}
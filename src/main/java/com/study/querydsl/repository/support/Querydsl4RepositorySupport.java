@@ -25,13 +25,21 @@ import java.util.function.Function;
 public abstract class Querydsl4RepositorySupport {
 
     private final Class domainClass;
+    private final SortTranslator sortTranslator;
     private Querydsl querydsl;
+    private Pagination pagination;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private JPAQueryFactory readOnlyQueryFactory;
 
     public Querydsl4RepositorySupport(Class<?> domainClass) {
+        this(domainClass, null);
+    }
+
+    public Querydsl4RepositorySupport(Class<?> domainClass, SortTranslator sortTranslator) {
         Assert.notNull(domainClass, "Domain class must not be null!");
         this.domainClass = domainClass;
+        this.sortTranslator = sortTranslator;
     }
 
     @Autowired
@@ -44,7 +52,16 @@ public abstract class Querydsl4RepositorySupport {
         this.entityManager = entityManager;
         this.querydsl = new Querydsl(entityManager, new
                 PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
+        this.pagination = new Pagination(querydsl, sortTranslator);
+    }
+
+    @Autowired
+    public void setQueryFactory(JPAQueryFactory queryFactory) {
+        Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        this.queryFactory = queryFactory;
+        this.readOnlyQueryFactory = queryFactory instanceof InspectingJPAQueryFactory
+                ? ((InspectingJPAQueryFactory) queryFactory).readOnly()
+                : queryFactory;
     }
 
     @PostConstruct
@@ -57,6 +74,12 @@ public abstract class Querydsl4RepositorySupport {
     protected JPAQueryFactory getQueryFactory() {
         return queryFactory;
     }
+    /**
+     * 조회 결과를 수정하지 않는 쿼리용. 엔티티 스냅샷을 만들지 않고 쿼리 전 자동 flush 도 하지 않는다.
+     */
+    protected JPAQueryFactory getReadOnlyQueryFactory() {
+        return readOnlyQueryFactory;
+    }
     protected Querydsl getQuerydsl() {
         return querydsl;
     }
@@ -70,21 +93,51 @@ public abstract class Querydsl4RepositorySupport {
     protected <T> JPAQuery<T> selectFrom(EntityPath<T> from) {
         return getQueryFactory().selectFrom(from);
     }
+
+    protected <T> JPAQuery<T> readOnlySelect(Expression<T> expr) {
+        return getReadOnlyQueryFactory().select(expr);
+    }
+
+    protected <T> JPAQuery<T> readOnlySelectFrom(EntityPath<T> from) {
+        return getReadOnlyQueryFactory().selectFrom(from);
+    }
+
+    protected <T> List<T> fetch(JPAQuery<T> query, FetchPlan fetchPlan) {
+        return fetchPlan.fetch(query, getQueryFactory(), getEntityManager());
+    }
+    protected <T> JPAQuery<T> applyPagination(Pageable pageable, JPAQuery<T> query) {
+        return pagination.apply(pageable, query);
+    }
+    /**
+     * 조회 쿼리에서 select 절, 정렬, 페이징, 쓰지 않는 to-one left join 을 뺀 count 쿼리를 만든다.
+     */
+    protected JPAQuery<?> countQuery(JPAQuery<?> contentQuery) {
+        return CountQuery.from(contentQuery, getQueryFactory());
+    }
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable,
-                jpaQuery).fetch();
+        JPAQuery<?> countQuery = countQuery(jpaQuery);
+        List<T> content = applyPagination(pageable, jpaQuery).fetch();
         return PageableExecutionUtils.getPage(content, pageable,
-                jpaQuery::fetchCount);
+                countQuery::fetchCount);
     }
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory, JPAQuery> countQuery) {
         JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable,
-                jpaContentQuery).fetch();
-        JPAQuery countResult = countQuery.apply(getQueryFactory());
+        List<T> content = applyPagination(pageable, jpaContentQuery).fetch();
+        JPAQuery<?> countResult = countQuery(countQuery.apply(getQueryFactory()));
         return PageableExecutionUtils.getPage(content, pageable,
                 countResult::fetchCount);
     }
+
+    protected <T> Page<T> applyPagination(Pageable pageable,
+                                          Function<JPAQueryFactory, JPAQuery<T>> contentQuery, FetchPlan fetchPlan) {
+        JPAQuery<T> jpaContentQuery = contentQuery.apply(getQueryFactory());
+        JPAQuery<?> countQuery = countQuery(jpaContentQuery);
+        List<T> content = fetchPlan.fetchPage(jpaContentQuery, pageable, pagination,
+                getQueryFactory(), getEntityManager());
+        return PageableExecutionUtils.getPage(content, pageable,
+                countQuery::fetchCount);
+    }
 }
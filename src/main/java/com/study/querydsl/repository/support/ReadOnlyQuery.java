@@ -0,0 +1,22 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.FlushMode;
+import org.hibernate.annotations.QueryHints;
+
+/**
+ * 조회 전용 쿼리 힌트. 결과 엔티티를 읽기 전용으로 올려서 스냅샷을 만들지 않고(더티 체킹 대상에서 빠진다),
+ * 쿼리 전에 자동 flush 도 하지 않는다.
+ * 같은 트랜잭션에서 flush 하지 않은 변경은 이 쿼리 결과에 보이지 않는다.
+ */
+public final class ReadOnlyQuery {
+
+    private ReadOnlyQuery() {
+    }
+
+    public static <T> JPAQuery<T> readOnly(JPAQuery<T> query) {
+        query.setHint(QueryHints.READ_ONLY, true);
+        query.setHint(QueryHints.FLUSH_MODE, FlushMode.MANUAL);
+        return query;
+    }
+}
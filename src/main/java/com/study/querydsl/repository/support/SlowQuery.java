@@ -0,0 +1,25 @@
+package com.study.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public class SlowQuery {
+    private final String jpql;
+    private final String sql;
+    private final List<Object> parameters;
+    private final long rows;
+    private final long elapsedMillis;
+    private final String callSite;
+
+    @Override
+    public String toString() {
+        return "elapsed=" + elapsedMillis + "ms rows=" + rows + " callSite=" + callSite
+                + "\n  jpql: " + jpql
+                + "\n  sql: " + sql
+                + "\n  parameters: " + parameters;
+    }
+}
@@ -0,0 +1,151 @@
+package com.study.querydsl.repository.support;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * PreparedStatement 의 실행 시간(결과를 다 읽고 닫을 때까지), 바인딩 파라미터, 건수를 재서 SlowQueryLog 로 넘긴다.
+ * 다른 용도(테스트의 SQL 기록 등)는 StatementListener 를 직접 넘겨서 같은 프록시를 쓴다.
+ */
+public class SlowQueryDataSource {
+
+    private SlowQueryDataSource() {
+    }
+
+    public static DataSource wrap(DataSource dataSource, SlowQueryLog slowQueryLog) {
+        return wrap(dataSource, slowQueryLog::record);
+    }
+
+    public static DataSource wrap(DataSource dataSource, StatementListener listener) {
+        return proxy(DataSource.class, dataSource, (target, method, args) -> {
+            Object result = method.invoke(target, args);
+            return result instanceof Connection ? wrap((Connection) result, listener) : result;
+        });
+    }
+
+    private static Connection wrap(Connection connection, StatementListener listener) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = method.invoke(target, args);
+            if (result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+                return new StatementTimer((String) args[0], listener).wrap((PreparedStatement) result);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 실행이 끝난(결과를 다 읽었거나 닫힌) PreparedStatement 마다 한 번 불린다.
+     */
+    @FunctionalInterface
+    public interface StatementListener {
+        void record(String sql, List<Object> parameters, long rows, long elapsedNanos);
+    }
+
+    private static class StatementTimer {
+        private final String sql;
+        private final StatementListener listener;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+        private long startedAt;
+        private long rows;
+        private boolean running;
+
+        StatementTimer(String sql, StatementListener listener) {
+            this.sql = sql;
+            this.listener = listener;
+        }
+
+        PreparedStatement wrap(PreparedStatement statement) {
+            return proxy(PreparedStatement.class, statement, (target, method, args) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                    return method.invoke(target, args);
+                }
+                if (name.equals("clearParameters")) {
+                    parameters.clear();
+                    return method.invoke(target, args);
+                }
+                if (name.equals("executeQuery") && args == null) {
+                    start();
+                    return wrap((ResultSet) method.invoke(target, args));
+                }
+                if (name.equals("executeUpdate") && args == null) {
+                    start();
+                    int updated = (Integer) method.invoke(target, args);
+                    rows = updated;
+                    finish();
+                    return updated;
+                }
+                if (name.equals("executeBatch")) {
+                    start();
+                    int[] updated = (int[]) method.invoke(target, args);
+                    for (int count : updated) {
+                        rows += Math.max(count, 0);
+                    }
+                    finish();
+                    return updated;
+                }
+                if (name.equals("close")) {
+                    finish();
+                }
+                return method.invoke(target, args);
+            });
+        }
+
+        private ResultSet wrap(ResultSet resultSet) {
+            return proxy(ResultSet.class, resultSet, (target, method, args) -> {
+                Object result = method.invoke(target, args);
+                if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                    rows++;
+                } else if (method.getName().equals("close")) {
+                    finish();
+                }
+                return result;
+            });
+        }
+
+        private void start() {
+            startedAt = System.nanoTime();
+            rows = 0;
+            running = true;
+        }
+
+        private void finish() {
+            if (!running) {
+                return;
+            }
+            running = false;
+            listener.record(sql, new ArrayList<>(parameters.values()), rows, System.nanoTime() - startedAt);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Interceptor<T> interceptor) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            try {
+                return interceptor.invoke(target, method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        };
+        // 커넥션 풀처럼 close 가 있는 대상은 컨테이너가 종료할 때 close 를 부를 수 있도록 AutoCloseable 도 드러낸다.
+        Class<?>[] interfaces = target instanceof AutoCloseable && !AutoCloseable.class.isAssignableFrom(type)
+                ? new Class<?>[]{type, AutoCloseable.class}
+                : new Class<?>[]{type};
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), interfaces, handler);
+    }
+
+    private interface Interceptor<T> {
+        Object invoke(T target, Method method, Object[] args) throws Throwable;
+    }
+}
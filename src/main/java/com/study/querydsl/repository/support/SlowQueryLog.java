@@ -0,0 +1,97 @@
+package com.study.querydsl.repository.support;
+
+import com.study.querydsl.config.SlowQueryProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * threshold 와 sampling 을 통과한 쿼리만 JPQL, SQL, 파라미터, 건수, 호출 위치와 함께 남긴다.
+ * JPQL 은 hibernate.use_sql_comments 로 SQL 앞에 붙는 주석에서 꺼낸다.
+ */
+public class SlowQueryLog {
+
+    private static final Logger log = LoggerFactory.getLogger("slow-query");
+    private static final Pattern LEADING_COMMENT = Pattern.compile("^\\s*/\\*\\s*(.*?)\\s*\\*/\\s*(.*)$", Pattern.DOTALL);
+
+    private final SlowQueryProperties properties;
+    private final Consumer<SlowQuery> sink;
+
+    public SlowQueryLog(SlowQueryProperties properties) {
+        this(properties, slowQuery -> log.info("{}", slowQuery));
+    }
+
+    public SlowQueryLog(SlowQueryProperties properties, Consumer<SlowQuery> sink) {
+        this.properties = properties;
+        this.sink = sink;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public void record(String sql, List<Object> parameters, long rows, long elapsedNanos) {
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (elapsedMillis < properties.getThreshold().toMillis()) {
+            return;
+        }
+        if (properties.getSampleRate() < 1.0 && ThreadLocalRandom.current().nextDouble() >= properties.getSampleRate()) {
+            return;
+        }
+        String jpql = null;
+        Matcher matcher = LEADING_COMMENT.matcher(sql);
+        if (matcher.matches()) {
+            jpql = matcher.group(1);
+            sql = matcher.group(2);
+        }
+        sink.accept(new SlowQuery(jpql, sql, abbreviate(parameters), rows, elapsedMillis, callSite()));
+    }
+
+    private List<Object> abbreviate(List<Object> parameters) {
+        List<Object> result = new ArrayList<>(parameters.size());
+        int max = properties.getMaxParameterLength();
+        for (Object parameter : parameters) {
+            if (parameter instanceof String && ((String) parameter).length() > max) {
+                result.add(((String) parameter).substring(0, max) + "...");
+            } else {
+                result.add(parameter);
+            }
+        }
+        return result;
+    }
+
+    private String callSite() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> isCallSite(frame.getClassName()))
+                .findFirst()
+                .map(StackWalker.StackFrame::toStackTraceElement)
+                .map(StackTraceElement::toString)
+                .orElse("unknown"));
+    }
+
+    private boolean isCallSite(String className) {
+        if (!className.startsWith(properties.getCallSitePackage())
+                || isSameClass(className, SlowQueryLog.class)
+                || isSameClass(className, SlowQueryDataSource.class)
+                || className.contains("$$")) {
+            return false;
+        }
+        for (String exclude : properties.getCallSiteExcludes()) {
+            if (className.startsWith(exclude)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSameClass(String className, Class<?> type) {
+        return className.equals(type.getName()) || className.startsWith(type.getName() + "$");
+    }
+}
@@ -0,0 +1,93 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 허용한 정렬 프로퍼티만 미리 만들어 둔 OrderSpecifier 로 바꾼다.
+ * 인덱스가 있는 경로만 등록하고, 나머지 정렬 요청은 UnsupportedSortException 으로 거절한다.
+ * 결과 순서가 페이지마다 흔들리지 않도록 마지막에 항상 id 정렬을 붙인다.
+ */
+public final class SortTranslator {
+
+    private static final int MAX_CACHED_SORTS = 256;
+
+    private final Map<String, ComparableExpressionBase<?>> allowed;
+    private final ComparableExpressionBase<?> tiebreaker;
+    private final String tiebreakerProperty;
+    private final ConcurrentMap<Sort, List<OrderSpecifier<?>>> cache = new ConcurrentHashMap<>();
+
+    private SortTranslator(ComparableExpressionBase<?> tiebreaker, String tiebreakerProperty,
+                           Map<String, ComparableExpressionBase<?>> allowed) {
+        this.tiebreaker = tiebreaker;
+        this.tiebreakerProperty = tiebreakerProperty;
+        this.allowed = allowed;
+    }
+
+    public static SortTranslator tiebreaker(String property, ComparableExpressionBase<?> id) {
+        Map<String, ComparableExpressionBase<?>> allowed = new LinkedHashMap<>();
+        allowed.put(property, id);
+        return new SortTranslator(id, property, Collections.unmodifiableMap(allowed));
+    }
+
+    public SortTranslator allow(String property, ComparableExpressionBase<?> path) {
+        Map<String, ComparableExpressionBase<?>> next = new LinkedHashMap<>(allowed);
+        next.put(property, path);
+        return new SortTranslator(tiebreaker, tiebreakerProperty, Collections.unmodifiableMap(next));
+    }
+
+    public OrderSpecifier<?>[] translate(Sort sort) {
+        List<OrderSpecifier<?>> orders = cache.get(sort);
+        if (orders == null) {
+            orders = compile(sort);
+            // 허용 프로퍼티 조합은 유한하지만, 조합 수가 많아지면 캐시하지 않고 매번 만든다.
+            if (cache.size() < MAX_CACHED_SORTS) {
+                cache.putIfAbsent(sort, orders);
+            }
+        }
+        return orders.toArray(new OrderSpecifier<?>[0]);
+    }
+
+    private List<OrderSpecifier<?>> compile(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        boolean tiebroken = false;
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = allowed.get(order.getProperty());
+            if (path == null) {
+                throw new UnsupportedSortException("Unsupported sort property: " + order.getProperty()
+                        + " (allowed: " + allowed.keySet() + ")");
+            }
+            if (order.isIgnoreCase()) {
+                throw new UnsupportedSortException("Case-insensitive sort is not supported: " + order.getProperty());
+            }
+            orders.add(toOrderSpecifier(order, path));
+            tiebroken |= order.getProperty().equals(tiebreakerProperty);
+        }
+        if (!tiebroken) {
+            orders.add(tiebreaker.asc());
+        }
+        return Collections.unmodifiableList(orders);
+    }
+
+    private OrderSpecifier<?> toOrderSpecifier(Sort.Order order, ComparableExpressionBase<?> path) {
+        OrderSpecifier<?> specifier = order.isAscending() ? path.asc() : path.desc();
+        switch (order.getNullHandling()) {
+            case NULLS_FIRST:
+                return specifier.nullsFirst();
+            case NULLS_LAST:
+                return specifier.nullsLast();
+            default:
+                return specifier;
+        }
+    }
+}
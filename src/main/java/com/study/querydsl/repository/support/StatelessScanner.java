@@ -0,0 +1,71 @@
+package com.study.querydsl.repository.support;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.hibernate.HibernateQuery;
+import com.querydsl.jpa.hibernate.StatelessSessionHolder;
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.util.Assert;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.function.Consumer;
+
+/**
+ * Querydsl 쿼리를 StatelessSession 에서 forward-only 로 스크롤하면서 한 행씩 consumer 에 넘긴다.
+ * 영속성 컨텍스트가 없어서 읽은 엔티티가 쌓이지 않으므로 행 수와 상관없이 메모리를 일정하게 쓴다.
+ *
+ * <pre>
+ * scanner.scan(queryFactory.selectFrom(member).orderBy(member.id.asc()), m -> ...);
+ * </pre>
+ *
+ * 쿼리는 평소처럼 JPAQueryFactory 로 만들고 메타데이터만 가져다 쓴다(원래 쿼리는 실행하지 않는다).
+ * 진행 중인 트랜잭션이 있으면 그 커넥션을 같이 쓰지만, EntityManager 에서 flush 하지 않은 변경은 보이지 않는다.
+ * 넘겨받은 엔티티는 detached 상태라 지연 로딩 연관관계는 id 말고는 읽을 수 없다. 필요한 값은 DTO 로 projection 한다.
+ */
+public class StatelessScanner {
+
+    private final SessionFactory sessionFactory;
+    private final DataSource dataSource;
+    private final int fetchSize;
+
+    public StatelessScanner(SessionFactory sessionFactory, DataSource dataSource, int fetchSize) {
+        Assert.isTrue(fetchSize > 0, "fetchSize must be positive");
+        this.sessionFactory = sessionFactory;
+        this.dataSource = dataSource;
+        this.fetchSize = fetchSize;
+    }
+
+    public <T> long scan(JPAQuery<T> query, Consumer<? super T> consumer) {
+        return scan(query, fetchSize, consumer);
+    }
+
+    /**
+     * @return consumer 에 넘긴 행 수
+     */
+    public <T> long scan(JPAQuery<T> query, int fetchSize, Consumer<? super T> consumer) {
+        Assert.isTrue(fetchSize > 0, "fetchSize must be positive");
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        StatelessSession session = sessionFactory.openStatelessSession(connection);
+        try {
+            HibernateQuery<T> scan = new HibernateQuery<T>(new StatelessSessionHolder(session), HQLTemplates.DEFAULT,
+                    query.getMetadata().clone())
+                    .setFetchSize(fetchSize)
+                    .setReadOnly(true);
+            long rows = 0;
+            try (CloseableIterator<T> iterator = scan.iterate()) {
+                while (iterator.hasNext()) {
+                    consumer.accept(iterator.next());
+                    rows++;
+                }
+            }
+            return rows;
+        } finally {
+            session.close();
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.study.querydsl.repository.support;
+
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 팀 이름 -> 팀 id 사전. 팀 이름 조건을 member.team_id 조건으로 바꿔서 team 조인 없이 거르게 한다.
+ * 이름은 유일하지 않으므로 이름 하나에 id 여러 개가 올 수 있다.
+ *
+ * 기동할 때 전체를 읽고, 이후 Team 변경은 커밋된 뒤에 반영한다.
+ * 그래서 로딩 전이거나, 지금 트랜잭션이 팀을 바꿨거나, flush 할 변경이 남아 있으면 사전을 쓰지 않는다(idsOf == null).
+ */
+public class TeamNameDictionary {
+
+    private final boolean enabled;
+    private final EntityManagerFactory entityManagerFactory;
+    // 이 트랜잭션에서 팀을 바꿨다는 표시를 트랜잭션 리소스로 건다.
+    private final Object teamWritesKey = new Object();
+
+    private final Map<String, Set<Long>> idsByName = new HashMap<>();
+    private final Map<Long, String> nameById = new HashMap<>();
+    private volatile boolean ready;
+
+    public TeamNameDictionary(EntityManagerFactory entityManagerFactory) {
+        this(true, entityManagerFactory);
+    }
+
+    private TeamNameDictionary(boolean enabled, EntityManagerFactory entityManagerFactory) {
+        this.enabled = enabled;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    // 항상 team 조인으로 거르게 한다.
+    public static TeamNameDictionary disabled() {
+        return new TeamNameDictionary(false, null);
+    }
+
+    /**
+     * @return 이름이 같은 팀 id 들(없는 이름이면 빈 집합). 사전을 쓸 수 없으면 null
+     */
+    public Set<Long> idsOf(String name) {
+        if (!enabled || !ready || teamsWrittenInTransaction() || hasPendingWrites()) {
+            return null;
+        }
+        synchronized (this) {
+            Set<Long> ids = idsByName.get(name);
+            return ids == null ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(ids));
+        }
+    }
+
+    /**
+     * 읽는 도중에 커밋되어 이미 반영된 팀은 덮어쓰지 않는다.
+     */
+    public synchronized void load(Map<Long, String> namesById) {
+        namesById.forEach((teamId, name) -> {
+            if (!nameById.containsKey(teamId)) {
+                put(teamId, name);
+            }
+        });
+        ready = true;
+    }
+
+    public void onSaved(Long teamId, String name) {
+        afterCommit(() -> put(teamId, name));
+    }
+
+    public void onRemoved(Long teamId) {
+        afterCommit(() -> remove(teamId));
+    }
+
+    private synchronized void put(Long teamId, String name) {
+        remove(teamId);
+        if (name != null) {
+            nameById.put(teamId, name);
+            idsByName.computeIfAbsent(name, key -> new HashSet<>()).add(teamId);
+        }
+    }
+
+    private synchronized void remove(Long teamId) {
+        String previous = nameById.remove(teamId);
+        if (previous != null) {
+            Set<Long> ids = idsByName.get(previous);
+            ids.remove(teamId);
+            if (ids.isEmpty()) {
+                idsByName.remove(previous);
+            }
+        }
+    }
+
+    private void afterCommit(Runnable change) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        if (!TransactionSynchronizationManager.hasResource(teamWritesKey)) {
+            TransactionSynchronizationManager.bindResource(teamWritesKey, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(teamWritesKey);
+                }
+            });
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private boolean teamsWrittenInTransaction() {
+        return TransactionSynchronizationManager.hasResource(teamWritesKey);
+    }
+
+    private boolean hasPendingWrites() {
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+        return entityManager != null && entityManager.unwrap(Session.class).isDirty();
+    }
+}
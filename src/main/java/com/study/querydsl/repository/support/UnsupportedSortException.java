@@ -0,0 +1,12 @@
+package com.study.querydsl.repository.support;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UnsupportedSortException extends RuntimeException {
+
+    public UnsupportedSortException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,51 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.jpa.JPAExpressions;
+import com.study.querydsl.domain.QMember;
+
+import static com.study.querydsl.domain.QMember.member;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * member.username 검색용 predicate.
+ * contains 는 충분히 드문 gram 이 있을 때만 member_username_gram 인덱스로 후보를 좁힌 뒤 원래 like 조건으로 다시 확인한다.
+ * 흔한 gram 으로 좁히면 인덱스를 읽고 다시 확인하는 비용이 전체 스캔보다 크다.
+ */
+public final class UsernameSearch {
+
+    private static final QMember gramMember = new QMember("gramMember");
+    private static final StringPath gram = Expressions.stringPath("gram");
+
+    private UsernameSearch() {
+    }
+
+    public static BooleanExpression usernameContains(String keyword) {
+        return usernameContains(keyword, null);
+    }
+
+    /**
+     * selectiveGram 은 UsernameGramRepository.selectiveGram 으로 고른 gram. null 이면 like 로만 거른다.
+     */
+    public static BooleanExpression usernameContains(String keyword, String selectiveGram) {
+        if (!hasText(keyword)) {
+            return null;
+        }
+        if (selectiveGram == null) {
+            return member.username.contains(keyword);
+        }
+        return member.id.in(
+                    JPAExpressions
+                        .select(gramMember.id)
+                        .from(gramMember)
+                        .innerJoin(gramMember.usernameGrams, gram)
+                        .where(gram.eq(selectiveGram)))
+                .and(member.username.contains(keyword));
+    }
+
+    public static BooleanExpression usernameStartsWith(String prefix) {
+        return hasText(prefix) ? member.username.startsWith(prefix) : null;
+    }
+}
@@ -0,0 +1,77 @@
+package com.study.querydsl.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.querydsl.dto.MemberTeamDto;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+
+    CSV("csv", "text/csv") {
+        @Override
+        public void writeHeader(Writer writer) throws IOException {
+            writer.write("member_id,username,age,team_id,team_name\n");
+        }
+
+        @Override
+        public void write(Writer writer, MemberTeamDto row) throws IOException {
+            writer.write(String.valueOf(row.getMemberId()));
+            writer.write(',');
+            writer.write(escape(row.getUsername()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getAge()));
+            writer.write(',');
+            writer.write(row.getTeamId() == null ? "" : String.valueOf(row.getTeamId()));
+            writer.write(',');
+            writer.write(escape(row.getTeamName()));
+            writer.write('\n');
+        }
+
+        private String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    },
+
+    JSON_LINES("jsonl", "application/x-ndjson") {
+        private final ObjectMapper objectMapper = new ObjectMapper();
+
+        @Override
+        public void write(Writer writer, MemberTeamDto row) throws IOException {
+            try {
+                writer.write(objectMapper.writeValueAsString(row));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+            writer.write('\n');
+        }
+    };
+
+    private final String extension;
+    private final String contentType;
+
+    public void writeHeader(Writer writer) throws IOException {
+    }
+
+    public abstract void write(Writer writer, MemberTeamDto row) throws IOException;
+
+    public static ExportFormat of(String extension) {
+        return Arrays.stream(values())
+                .filter(format -> format.extension.equalsIgnoreCase(extension))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported export format: " + extension));
+    }
+}
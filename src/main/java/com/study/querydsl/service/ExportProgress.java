@@ -0,0 +1,16 @@
+package com.study.querydsl.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class ExportProgress {
+    private final long exported;
+    // 시작 시점의 count. 내보내는 동안 추가된 행 때문에 exported 가 더 클 수 있다.
+    private final long total;
+    private final long elapsedMillis;
+    private final boolean done;
+}
@@ -0,0 +1,213 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.config.MemberAnalyticsProperties;
+import com.study.querydsl.domain.MemberChangedEvent;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.repository.MemberScanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.Assert;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 통계성 조회(나이 분포, 팀별 나이 백분위, 나이 범위 건수)를 DB 대신 메모리의 칼럼 스냅샷으로 답한다.
+ * 스냅샷은 StatelessSession 스캔으로 주기마다 다시 만들고, 그 사이에는 MemberChangedEvent 로 알려진 회원만 다시 읽어 끼워 넣는다.
+ *
+ * 이벤트 없이 영속성 컨텍스트로 바꾼 회원은 다음 전체 재구성 때 반영된다.
+ * 팀 이름은 담지 않으므로 teamName 조건은 받지 않는다.
+ */
+public class MemberAnalyticsSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberAnalyticsSnapshot.class);
+
+    private final MemberScanRepository memberScanRepository;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "member-analytics");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile MemberColumns columns;
+
+    public MemberAnalyticsSnapshot(MemberScanRepository memberScanRepository, MemberAnalyticsProperties properties) {
+        this.memberScanRepository = memberScanRepository;
+        long interval = properties.getRebuildInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::rebuildQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        MemberColumns.Builder builder = MemberColumns.builder();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamIdOnly(true);
+        memberScanRepository.scanMemberTeams(condition, builder::add);
+        columns = builder.build();
+        log.info("member analytics snapshot rebuilt: {} rows in {}ms", columns.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * 주어진 회원만 다시 읽어 스냅샷에 반영한다. 없어진 회원은 스냅샷에서도 빠진다.
+     */
+    public synchronized void refresh(Set<Long> memberIds) {
+        if (columns == null) {
+            rebuild();
+            return;
+        }
+        List<MemberTeamDto> rows = new ArrayList<>();
+        memberScanRepository.scanByIds(memberIds, rows::add);
+        columns = columns.merge(memberIds, rows);
+    }
+
+    // 커밋된 뒤에 스냅샷 스레드에서 반영하므로 이벤트를 발행한 쪽은 기다리지 않는다.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        scheduler.execute(() -> {
+            try {
+                refresh(event.getMemberIds());
+            } catch (RuntimeException e) {
+                log.warn("member analytics refresh failed, waiting for the next rebuild", e);
+            }
+        });
+    }
+
+    public int size() {
+        return columns().size();
+    }
+
+    /**
+     * username / teamId / ageGoe / ageLoe 조건에 맞는 회원 수.
+     */
+    public long count(MemberSearchCondition condition) {
+        if (hasText(condition.getTeamName())) {
+            throw new IllegalArgumentException("teamName is not part of the analytics snapshot");
+        }
+        MemberColumns current = columns();
+        boolean byUsername = hasText(condition.getUsername());
+        int usernameCode = byUsername ? current.codeOf(condition.getUsername()) : 0;
+        boolean byTeam = condition.getTeamId() != null;
+        long teamId = byTeam ? condition.getTeamId() : 0;
+        int ageGoe = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+        int ageLoe = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+
+        long count = 0;
+        for (int row = 0, size = current.size(); row < size; row++) {
+            int age = current.age(row);
+            if (age < ageGoe || age > ageLoe) {
+                continue;
+            }
+            if (byTeam && current.teamId(row) != teamId) {
+                continue;
+            }
+            if (byUsername && current.usernameCode(row) != usernameCode) {
+                continue;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 나이를 bucketWidth 단위 구간으로 나눈 인원 수. 키는 구간의 시작 나이이고 인원이 없는 구간은 빠진다.
+     */
+    public SortedMap<Integer, Long> ageHistogram(int bucketWidth) {
+        Assert.isTrue(bucketWidth > 0, "bucketWidth must be positive");
+        MemberColumns current = columns();
+        SortedMap<Integer, Long> histogram = new TreeMap<>();
+        if (current.size() == 0) {
+            return histogram;
+        }
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int row = 0, size = current.size(); row < size; row++) {
+            int age = current.age(row);
+            min = Math.min(min, age);
+            max = Math.max(max, age);
+        }
+        int firstBucket = Math.floorDiv(min, bucketWidth);
+        long[] counts = new long[Math.floorDiv(max, bucketWidth) - firstBucket + 1];
+        for (int row = 0, size = current.size(); row < size; row++) {
+            counts[Math.floorDiv(current.age(row), bucketWidth) - firstBucket]++;
+        }
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            if (counts[bucket] > 0) {
+                histogram.put((firstBucket + bucket) * bucketWidth, counts[bucket]);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * 팀별 나이 백분위(nearest-rank). percentile 은 0 초과 100 이하이고, 팀이 없는 회원은 빠진다.
+     */
+    public Map<Long, Integer> agePercentileByTeam(double percentile) {
+        Assert.isTrue(percentile > 0 && percentile <= 100, "percentile must be in (0, 100]");
+        MemberColumns current = columns();
+        Map<Long, int[]> sizes = new HashMap<>();
+        for (int row = 0, size = current.size(); row < size; row++) {
+            long teamId = current.teamId(row);
+            if (teamId != MemberColumns.NO_TEAM) {
+                sizes.computeIfAbsent(teamId, key -> new int[1])[0]++;
+            }
+        }
+        Map<Long, int[]> ages = new HashMap<>();
+        Map<Long, int[]> filled = new HashMap<>();
+        sizes.forEach((teamId, size) -> {
+            ages.put(teamId, new int[size[0]]);
+            filled.put(teamId, new int[1]);
+        });
+        for (int row = 0, size = current.size(); row < size; row++) {
+            long teamId = current.teamId(row);
+            if (teamId != MemberColumns.NO_TEAM) {
+                ages.get(teamId)[filled.get(teamId)[0]++] = current.age(row);
+            }
+        }
+        Map<Long, Integer> result = new HashMap<>();
+        ages.forEach((teamId, teamAges) -> {
+            Arrays.sort(teamAges);
+            int rank = (int) Math.ceil(percentile / 100 * teamAges.length);
+            result.put(teamId, teamAges[Math.max(rank, 1) - 1]);
+        });
+        return result;
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private MemberColumns columns() {
+        MemberColumns current = columns;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (columns == null) {
+                rebuild();
+            }
+            return columns;
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("member analytics rebuild failed, keeping the previous snapshot", e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.dto.MemberTeamDto;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 회원을 칼럼별 direct buffer(힙 밖)에 member_id 순서로 담는다. 만든 뒤에는 바꾸지 않는다.
+ * username 은 사전(dictionary)에 한 번만 두고 칼럼에는 사전 번호만 담는다.
+ * direct buffer 는 이 객체가 GC 될 때 같이 풀린다.
+ */
+final class MemberColumns {
+
+    static final long NO_TEAM = Long.MIN_VALUE;
+    static final int NO_USERNAME = -1;
+
+    private final int size;
+    private final LongBuffer ids;
+    private final IntBuffer ages;
+    private final LongBuffer teamIds;
+    private final IntBuffer usernames;
+    private final List<String> dictionary;
+    private final Map<String, Integer> codes;
+
+    private MemberColumns(Builder builder) {
+        this.size = builder.size;
+        this.ids = builder.ids;
+        this.ages = builder.ages;
+        this.teamIds = builder.teamIds;
+        this.usernames = builder.usernames;
+        this.dictionary = builder.dictionary;
+        this.codes = builder.codes;
+    }
+
+    static Builder builder() {
+        return new Builder(Builder.INITIAL_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long id(int row) {
+        return ids.get(row);
+    }
+
+    int age(int row) {
+        return ages.get(row);
+    }
+
+    long teamId(int row) {
+        return teamIds.get(row);
+    }
+
+    int usernameCode(int row) {
+        return usernames.get(row);
+    }
+
+    String username(int row) {
+        int code = usernames.get(row);
+        return code == NO_USERNAME ? null : dictionary.get(code);
+    }
+
+    /**
+     * 사전에 없는 username 이면 어떤 행과도 맞지 않는 -2 를 돌려준다.
+     */
+    int codeOf(String username) {
+        return codes.getOrDefault(username, NO_USERNAME - 1);
+    }
+
+    /**
+     * changedIds 에 해당하는 행을 빼고, 다시 읽은 rows(member_id 순서)를 제자리에 끼워 넣은 새 칼럼을 만든다.
+     * changedIds 에 있는데 rows 에 없는 회원은 지워진 것으로 본다.
+     * 칼럼은 처음부터 모자라지 않게 잡고, 사전은 남은 username 으로 새로 만들어 더 쓰이지 않는 이름을 버린다.
+     */
+    MemberColumns merge(Set<Long> changedIds, List<MemberTeamDto> rows) {
+        Builder builder = new Builder(size + rows.size());
+        int next = 0;
+        for (int row = 0; row < size; row++) {
+            long id = ids.get(row);
+            while (next < rows.size() && rows.get(next).getMemberId() < id) {
+                builder.add(rows.get(next++));
+            }
+            if (!changedIds.contains(id)) {
+                builder.add(id, ages.get(row), teamIds.get(row), builder.encode(username(row)));
+            }
+        }
+        while (next < rows.size()) {
+            builder.add(rows.get(next++));
+        }
+        return builder.build();
+    }
+
+    static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final List<String> dictionary;
+        private final Map<String, Integer> codes;
+        private int size;
+        private int capacity;
+        private LongBuffer ids;
+        private IntBuffer ages;
+        private LongBuffer teamIds;
+        private IntBuffer usernames;
+
+        private Builder(int initialCapacity) {
+            this.dictionary = new ArrayList<>();
+            this.codes = new HashMap<>();
+            allocate(Math.max(1, initialCapacity));
+        }
+
+        void add(MemberTeamDto row) {
+            add(row.getMemberId(), row.getAge(), row.getTeamId() == null ? NO_TEAM : row.getTeamId(), encode(row.getUsername()));
+        }
+
+        private void add(long id, int age, long teamId, int usernameCode) {
+            if (size == capacity) {
+                allocate(capacity * 2);
+            }
+            ids.put(size, id);
+            ages.put(size, age);
+            teamIds.put(size, teamId);
+            usernames.put(size, usernameCode);
+            size++;
+        }
+
+        MemberColumns build() {
+            return new MemberColumns(this);
+        }
+
+        private int encode(String username) {
+            if (username == null) {
+                return NO_USERNAME;
+            }
+            return codes.computeIfAbsent(username, key -> {
+                dictionary.add(key);
+                return dictionary.size() - 1;
+            });
+        }
+
+        // 칼럼을 newCapacity 크기로 새로 잡고 지금까지 채운 행을 옮긴다.
+        private void allocate(int newCapacity) {
+            LongBuffer newIds = directLongs(newCapacity);
+            IntBuffer newAges = directInts(newCapacity);
+            LongBuffer newTeamIds = directLongs(newCapacity);
+            IntBuffer newUsernames = directInts(newCapacity);
+            for (int row = 0; row < size; row++) {
+                newIds.put(row, ids.get(row));
+                newAges.put(row, ages.get(row));
+                newTeamIds.put(row, teamIds.get(row));
+                newUsernames.put(row, usernames.get(row));
+            }
+            ids = newIds;
+            ages = newAges;
+            teamIds = newTeamIds;
+            usernames = newUsernames;
+            capacity = newCapacity;
+        }
+
+        private static LongBuffer directLongs(int capacity) {
+            return ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+
+        private static IntBuffer directInts(int capacity) {
+            return ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.config.MemberCursorPrefetchProperties;
+import com.study.querydsl.domain.MemberChangedEvent;
+import com.study.querydsl.dto.MemberCursorPage;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.repository.MemberRepository;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 무한 스크롤처럼 커서 페이지를 이어서 읽는 요청은 prefetch=true 로 다음 페이지를 미리 읽게 할 수 있다.
+ * 미리 읽은 페이지는 (조건, 커서, 크기) 로 찾고, window 안에 가져가지 않으면 버린다.
+ * 미리 읽은 페이지는 그 사이에 바뀐 회원을 반영하지 못할 수 있다. 벌크 변경(MemberChangedEvent)이 커밋되면 모두 버린다.
+ */
+@Service
+public class MemberCursorService {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberCursorService.class);
+
+    private final MemberRepository memberRepository;
+    private final MemberCursorPrefetchProperties properties;
+    private final ScheduledThreadPoolExecutor executor;
+    // 키 -> 미리 읽는 중이거나 다 읽은 다음 페이지. 넣은 순서대로 버린다.
+    private final Map<Key, Prefetch> prefetches = new LinkedHashMap<>();
+    private final AtomicLong prefetchHits = new AtomicLong();
+
+    public MemberCursorService(MemberRepository memberRepository, MemberCursorPrefetchProperties properties) {
+        this.memberRepository = memberRepository;
+        this.properties = properties;
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(properties.getThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "member-cursor-prefetch-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 가져가거나 버린 페이지의 만료 작업이 window 동안 큐에 남지 않도록 한다.
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    public MemberCursorPage page(MemberSearchCondition condition, Long lastMemberId, int size, boolean prefetch) {
+        Key key = new Key(copy(condition), lastMemberId, Math.max(1, Math.min(size, properties.getMaxPageSize())));
+        // 쓰기 트랜잭션 안에서는 아직 커밋되지 않은 변경이 보여야 하므로 미리 읽은 페이지를 쓰지 않는다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return load(key);
+        }
+        MemberCursorPage page = takePrefetched(key);
+        if (page == null) {
+            page = load(key);
+        }
+        if (prefetch && properties.isEnabled() && page.getNextCursor() != null) {
+            prefetch(key.next(page.getNextCursor()));
+        }
+        return page;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        synchronized (prefetches) {
+            prefetches.values().forEach(Prefetch::cancel);
+            prefetches.clear();
+        }
+    }
+
+    long getPrefetchHits() {
+        return prefetchHits.get();
+    }
+
+    int pendingPrefetches() {
+        synchronized (prefetches) {
+            return prefetches.size();
+        }
+    }
+
+    // 테스트에서 다음 페이지를 다 읽은 뒤에 가져가도록 기다린다.
+    void awaitPrefetches() throws InterruptedException {
+        List<Future<MemberCursorPage>> pages;
+        synchronized (prefetches) {
+            pages = prefetches.values().stream().map(prefetch -> prefetch.page).collect(Collectors.toList());
+        }
+        for (Future<MemberCursorPage> page : pages) {
+            try {
+                page.get(properties.getWindow().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | CancellationException | TimeoutException e) {
+                log.debug("member cursor prefetch did not complete", e);
+            }
+        }
+    }
+
+    private MemberCursorPage load(Key key) {
+        return memberRepository.searchByCursor(key.condition, key.lastMemberId, key.size);
+    }
+
+    private void prefetch(Key key) {
+        synchronized (prefetches) {
+            if (prefetches.containsKey(key)) {
+                return;
+            }
+            if (prefetches.size() >= properties.getMaxEntries()) {
+                Iterator<Prefetch> eldest = prefetches.values().iterator();
+                eldest.next().cancel();
+                eldest.remove();
+            }
+            Prefetch prefetch = new Prefetch();
+            prefetch.page = executor.submit(() -> prefetch.claimed.compareAndSet(false, true) ? load(key) : null);
+            prefetches.put(key, prefetch);
+            prefetch.expiry = executor.schedule(() -> expire(key, prefetch),
+                    properties.getWindow().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void expire(Key key, Prefetch prefetch) {
+        synchronized (prefetches) {
+            if (prefetches.remove(key, prefetch)) {
+                prefetch.cancel();
+            }
+        }
+    }
+
+    private MemberCursorPage takePrefetched(Key key) {
+        Prefetch prefetch;
+        synchronized (prefetches) {
+            prefetch = prefetches.remove(key);
+        }
+        if (prefetch == null) {
+            return null;
+        }
+        prefetch.expiry.cancel(false);
+        // 아직 큐에서 기다리는 조회는 취소하고 직접 읽는다.
+        if (prefetch.claimed.compareAndSet(false, true)) {
+            prefetch.cancel();
+            return null;
+        }
+        try {
+            // 읽는 중이면 새로 읽기보다 기다리는 편이 빠르다. 너무 오래 걸리면 직접 읽는다.
+            MemberCursorPage page = prefetch.page.get(properties.getWaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            prefetchHits.incrementAndGet();
+            return page;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (TimeoutException e) {
+            log.debug("member cursor prefetch is still running, loading again");
+            return null;
+        } catch (ExecutionException | CancellationException e) {
+            log.debug("member cursor prefetch failed, loading again", e);
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static MemberSearchCondition copy(MemberSearchCondition condition) {
+        MemberSearchCondition copy = new MemberSearchCondition();
+        copy.setUsername(condition.getUsername());
+        copy.setTeamId(condition.getTeamId());
+        copy.setTeamName(condition.getTeamName());
+        copy.setAgeGoe(condition.getAgeGoe());
+        copy.setAgeLoe(condition.getAgeLoe());
+        copy.setTeamIdOnly(condition.isTeamIdOnly());
+        return copy;
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+        private final MemberSearchCondition condition;
+        private final Long lastMemberId;
+        private final int size;
+
+        Key next(Long nextCursor) {
+            return new Key(condition, nextCursor, size);
+        }
+    }
+
+    private static class Prefetch {
+        // 조회가 시작되었거나 가져가는 쪽이 가로챘으면 true. 먼저 바꾼 쪽만 진행한다.
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private Future<MemberCursorPage> page;
+        private Future<?> expiry;
+
+        // 이미 실행 중인 조회는 끊지 않고(커넥션을 깨뜨리지 않도록) 결과만 버린다.
+        void cancel() {
+            page.cancel(false);
+            if (expiry != null) {
+                expiry.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.study.querydsl.service;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.config.MemberExportProperties;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.dto.QMemberTeamDto;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.Assert;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.study.querydsl.domain.QMember.member;
+import static com.study.querydsl.domain.QTeam.team;
+
+/**
+ * 전체 회원을 member_id 범위로 나눠 파티션마다 별도의 읽기 전용 커넥션에서 DTO 로 읽고,
+ * 한 스레드에서 CSV / JSON lines 로 흘려 쓴다.
+ * 읽기와 쓰기 사이는 크기가 정해진 큐라서 쓰기가 느리면 읽기가 기다리고, 메모리는 큐 크기만큼만 쓴다.
+ * 파티션끼리는 동시에 읽으므로 결과는 member_id 순서가 아니다.
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberExportService.class);
+    // 파티션 하나가 끝났다는 표시
+    private static final MemberTeamDto END_OF_PARTITION = new MemberTeamDto(null, null, 0, null, null);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final MemberExportProperties properties;
+
+    public ExportProgress export(Path file, ExportFormat format, Consumer<ExportProgress> listener) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            return export(writer, format, listener);
+        }
+    }
+
+    public ExportProgress export(Writer out, ExportFormat format, Consumer<ExportProgress> listener) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        Writer writer = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+        format.writeHeader(writer);
+
+        NumberExpression<Long> min = member.id.min();
+        NumberExpression<Long> max = member.id.max();
+        NumberExpression<Long> count = member.count();
+        Tuple range = readOnly(queryFactory -> queryFactory
+                .select(min, max, count)
+                .from(member)
+                .fetchOne());
+        Long minId = range.get(min);
+        Long maxId = range.get(max);
+        long total = range.get(count);
+        if (minId == null) {
+            writer.flush();
+            return progress(0, 0, startedAt, true, listener);
+        }
+
+        List<long[]> partitions = partition(minId, maxId, properties.getPartitions());
+        BlockingQueue<MemberTeamDto> queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        ExecutorService executor = Executors.newFixedThreadPool(partitions.size(), exportThreadFactory());
+        AtomicBoolean stopped = new AtomicBoolean();
+        try {
+            List<Future<?>> scans = new ArrayList<>();
+            for (long[] partition : partitions) {
+                scans.add(executor.submit(() -> {
+                    try {
+                        scan(partition[0], partition[1], queue);
+                    } finally {
+                        // 쓰기가 멈췄으면 아무도 큐를 비우지 않으므로 끝 표시를 넣으려고 기다리지 않는다.
+                        if (!stopped.get()) {
+                            queue.put(END_OF_PARTITION);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            long exported = 0;
+            int finished = 0;
+            while (finished < partitions.size()) {
+                MemberTeamDto row = take(queue);
+                if (row == END_OF_PARTITION) {
+                    finished++;
+                    continue;
+                }
+                format.write(writer, row);
+                if (++exported % properties.getProgressInterval() == 0) {
+                    writer.flush();
+                    progress(exported, total, startedAt, false, listener);
+                }
+            }
+            writer.flush();
+            for (Future<?> scan : scans) {
+                await(scan);
+            }
+            return progress(exported, total, startedAt, true, listener);
+        } finally {
+            // 쓰기가 실패하면 큐에서 기다리는 읽기 스레드를 깨워서 커넥션을 돌려준다.
+            // stopped 를 먼저 세우므로 깨어난 스레드가 끝 표시를 넣으려고 다시 막히지 않는다.
+            stopped.set(true);
+            executor.shutdownNow();
+        }
+    }
+
+    private void scan(long fromId, long toId, BlockingQueue<MemberTeamDto> queue) throws InterruptedException {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            markReadOnly(em);
+            JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+            long lastId = fromId - 1;
+            while (true) {
+                List<MemberTeamDto> chunk = queryFactory
+                        .select(new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name))
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(member.id.gt(lastId), member.id.loe(toId))
+                        .orderBy(member.id.asc())
+                        .limit(properties.getChunkSize())
+                        .fetch();
+                for (MemberTeamDto row : chunk) {
+                    queue.put(row);
+                }
+                if (chunk.size() < properties.getChunkSize()) {
+                    return;
+                }
+                lastId = chunk.get(chunk.size() - 1).getMemberId();
+            }
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+        }
+    }
+
+    private <T> T readOnly(Function<JPAQueryFactory, T> query) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            markReadOnly(em);
+            return query.apply(new JPAQueryFactory(em));
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+        }
+    }
+
+    private void markReadOnly(EntityManager em) {
+        Session session = em.unwrap(Session.class);
+        session.setDefaultReadOnly(true);
+        session.doWork(connection -> connection.setReadOnly(true));
+    }
+
+    static List<long[]> partition(long minId, long maxId, int count) {
+        Assert.isTrue(count > 0, "partition count must be positive");
+        long span = maxId - minId + 1;
+        long size = Math.max(1, (span + count - 1) / count);
+        List<long[]> partitions = new ArrayList<>();
+        for (long from = minId; from <= maxId; from += size) {
+            partitions.add(new long[]{from, Math.min(from + size - 1, maxId)});
+        }
+        return partitions;
+    }
+
+    private ExportProgress progress(long exported, long total, long startedAt, boolean done,
+                                    Consumer<ExportProgress> listener) {
+        ExportProgress progress = new ExportProgress(exported, total, System.currentTimeMillis() - startedAt, done);
+        log.info("member export {}", progress);
+        listener.accept(progress);
+        return progress;
+    }
+
+    private MemberTeamDto take(BlockingQueue<MemberTeamDto> queue) throws IOException {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("member export interrupted", e);
+        }
+    }
+
+    private void await(Future<?> scan) throws IOException {
+        try {
+            scan.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("member export interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("member export partition failed", e.getCause());
+        }
+    }
+
+    private ThreadFactory exportThreadFactory() {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "member-export-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
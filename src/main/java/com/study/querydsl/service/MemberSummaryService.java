@@ -0,0 +1,61 @@
+package com.study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.domain.MemberChangedEvent;
+import com.study.querydsl.dto.MemberSummary;
+import com.study.querydsl.dto.MemberSummaryCacheStats;
+import com.study.querydsl.dto.QMemberSummary;
+import com.study.querydsl.repository.support.MemberLookupFilter;
+import com.study.querydsl.repository.support.MemberSummaryCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.study.querydsl.domain.QMember.member;
+
+/**
+ * 로그인처럼 username 으로 회원을 찾는 조회. MemberSummaryCache 를 먼저 보고, 없는 username 은 MemberLookupFilter 로 거른다.
+ * 쓰기 트랜잭션 안에서는 아직 커밋되지 않은 값이 캐시에 들어가지 않도록 캐시를 거치지 않는다.
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberSummaryService {
+
+    private final JPAQueryFactory queryFactory;
+    private final MemberLookupFilter memberLookupFilter;
+    private final MemberSummaryCache memberSummaryCache;
+
+    public List<MemberSummary> findByUsername(String username) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return load(username);
+        }
+        return memberSummaryCache.get(username, this::load);
+    }
+
+    public MemberSummaryCacheStats cacheStats() {
+        return memberSummaryCache.stats();
+    }
+
+    // 벌크 upsert 는 username 말고 팀만 바꿀 수도 있어서 바뀐 회원 전부를 지운다.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        memberSummaryCache.invalidateMembers(event.getMemberIds());
+    }
+
+    private List<MemberSummary> load(String username) {
+        if (!memberLookupFilter.mightContainUsername(username)) {
+            return Collections.emptyList();
+        }
+        return queryFactory
+                .select(new QMemberSummary(member.id, member.username, member.team.id))
+                .from(member)
+                .where(member.username.eq(username))
+                .orderBy(member.id.asc())
+                .fetch();
+    }
+}
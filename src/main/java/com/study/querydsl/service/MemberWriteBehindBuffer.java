@@ -0,0 +1,167 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.config.MemberWriteBehindProperties;
+import com.study.querydsl.domain.MemberChangedEvent;
+import com.study.querydsl.repository.UsernameGramRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 자주 바뀌는 회원 필드(username, age)의 변경을 모았다가 한 번에 내려쓴다.
+ * 같은 회원을 여러 번 바꾸면 마지막 값만 남고, 개수나 주기가 차면 JDBC batch update 한 번으로 반영한다.
+ *
+ * 영속성 컨텍스트를 거치지 않으므로 내려쓰기 전까지는 조회해도 이전 값이 보이고,
+ * 이미 읽어 둔 Member 엔티티에는 반영되지 않는다. 내려쓴 뒤에는 MemberChangedEvent 를 발행해 회원 캐시를 비운다.
+ * DB 가 내려가 있어도 메모리가 끝없이 늘지 않도록 maxBuffered 명이 넘게 모이면 새 회원의 변경은 받지 않는다.
+ * 정상 종료할 때는 남은 변경을 모두 내려쓴다.
+ */
+public class MemberWriteBehindBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberWriteBehindBuffer.class);
+    // null 인 필드는 그대로 둔다.
+    private static final String UPDATE_SQL =
+            "update member set username = coalesce(?, username), age = coalesce(?, age) where member_id = ?";
+    private static final int[] UPDATE_TYPES = {Types.VARCHAR, Types.INTEGER, Types.BIGINT};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UsernameGramRepository usernameGramRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxPending;
+    private final int maxBuffered;
+
+    private final Map<Long, PendingUpdate> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "member-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MemberWriteBehindBuffer(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                   UsernameGramRepository usernameGramRepository, ApplicationEventPublisher eventPublisher,
+                                   MemberWriteBehindProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.usernameGramRepository = usernameGramRepository;
+        this.eventPublisher = eventPublisher;
+        this.maxPending = properties.getMaxPending();
+        this.maxBuffered = properties.getMaxBuffered();
+        long interval = properties.getFlushInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void updateUsername(Long memberId, String username) {
+        enqueue(memberId, new PendingUpdate(username, null));
+    }
+
+    public void updateAge(Long memberId, int age) {
+        enqueue(memberId, new PendingUpdate(null, age));
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void enqueue(Long memberId, PendingUpdate update) {
+        if (scheduler.isShutdown()) {
+            throw new IllegalStateException("member write-behind buffer is closed");
+        }
+        // 이미 모인 회원의 변경은 합쳐지기만 하므로 받는다. 경합으로 maxBuffered 를 조금 넘을 수는 있다.
+        if (pending.size() >= maxBuffered && !pending.containsKey(memberId)) {
+            throw new IllegalStateException("member write-behind buffer is full, " + pending.size() + " members pending");
+        }
+        pending.merge(memberId, update, PendingUpdate::then);
+        if (pending.size() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * 모인 변경을 한 트랜잭션으로 내려쓰고 반영한 회원 수를 돌려준다. 실패하면 변경을 다시 버퍼에 넣는다.
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            flushRequested.set(false);
+            Map<Long, PendingUpdate> drained = new HashMap<>();
+            for (Long memberId : new ArrayList<>(pending.keySet())) {
+                PendingUpdate update = pending.remove(memberId);
+                if (update != null) {
+                    drained.put(memberId, update);
+                }
+            }
+            if (drained.isEmpty()) {
+                return 0;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(drained));
+            } catch (RuntimeException e) {
+                // 그 사이에 들어온 변경이 더 최신이므로 그 값을 덮어쓰지 않는다.
+                drained.forEach((memberId, update) -> pending.merge(memberId, update, (newer, older) -> older.then(newer)));
+                throw e;
+            }
+            eventPublisher.publishEvent(new MemberChangedEvent(Collections.unmodifiableSet(drained.keySet())));
+            return drained.size();
+        }
+    }
+
+    private void write(Map<Long, PendingUpdate> drained) {
+        List<Object[]> updates = new ArrayList<>(drained.size());
+        Map<Long, String> usernames = new HashMap<>();
+        drained.forEach((memberId, update) -> {
+            updates.add(new Object[]{update.username, update.age, memberId});
+            if (update.username != null) {
+                usernames.put(memberId, update.username);
+            }
+        });
+        jdbcTemplate.batchUpdate(UPDATE_SQL, updates, UPDATE_TYPES);
+        usernameGramRepository.replace(usernames);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("member write-behind flush failed, {} members pending", pending.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        int flushed = flush();
+        log.info("member write-behind buffer closed, {} members flushed", flushed);
+    }
+
+    @RequiredArgsConstructor
+    private static class PendingUpdate {
+        private final String username;
+        private final Integer age;
+
+        // 나중 변경의 값이 있으면 그 값을, 없으면 이전 값을 남긴다.
+        PendingUpdate then(PendingUpdate later) {
+            return new PendingUpdate(
+                    later.username != null ? later.username : username,
+                    later.age != null ? later.age : age);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.config.TeamStatsProperties;
+import com.study.querydsl.domain.MemberChangedEvent;
+import com.study.querydsl.dto.TeamStatsDto;
+import com.study.querydsl.repository.TeamQuerydslSupportRepository;
+import com.study.querydsl.repository.support.QueryGuardrail;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * 팀 통계를 짧은 TTL 로 캐시한다. refreshAhead 가 지난 값을 읽으면 그 값을 돌려주면서 백그라운드에서 다시 계산하고,
+ * ttl 이 지난 값은 버리고 요청 스레드에서 계산한다. (동시에 여러 요청이 와도 계산은 한 번만 한다)
+ * evict 할 때마다 세대를 올리고, 이전 세대에 계산을 시작한 값은 늦게 저장되더라도 쓰지 않는다.
+ */
+@Service
+public class TeamStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(TeamStatsService.class);
+
+    private final TeamQuerydslSupportRepository teamQuerydslSupportRepository;
+    private final TeamStatsProperties properties;
+
+    private final LongSupplier nanoClock;
+    private final Executor refresher;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public TeamStatsService(TeamQuerydslSupportRepository teamQuerydslSupportRepository, TeamStatsProperties properties) {
+        this(teamQuerydslSupportRepository, properties, System::nanoTime, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "team-stats-refresh");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    TeamStatsService(TeamQuerydslSupportRepository teamQuerydslSupportRepository, TeamStatsProperties properties,
+                     LongSupplier nanoClock, Executor refresher) {
+        this.teamQuerydslSupportRepository = teamQuerydslSupportRepository;
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.refresher = refresher;
+    }
+
+    public List<TeamStatsDto> getStats() {
+        Snapshot current = snapshot;
+        if (!isFresh(current)) {
+            return loadIfExpired().stats;
+        }
+        if (age(current) >= properties.getRefreshAhead().toNanos() && refreshing.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                try {
+                    snapshot = load();
+                } catch (RuntimeException e) {
+                    // 실패해도 ttl 까지는 이전 값을 쓰고, 그 뒤엔 요청 스레드에서 다시 시도한다.
+                    log.warn("team stats refresh failed", e);
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        }
+        return current.stats;
+    }
+
+    public void evict() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    // 벌크로 회원을 바꾸면 커밋된 뒤에 통계를 다시 계산하게 한다.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        evict();
+    }
+
+    private synchronized Snapshot loadIfExpired() {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            return current;
+        }
+        snapshot = load();
+        return snapshot;
+    }
+
+    private Snapshot load() {
+        // 조회 전에 세대를 읽어야 조회 중에 들어온 evict 를 놓치지 않는다.
+        long loadedGeneration = generation.get();
+        long loadedAt = nanoClock.getAsLong();
+        // 모든 요청이 같이 쓰는 값이라 /teams/stats 요청의 한도로 잘린 결과를 담으면 안 된다.
+        try (QueryGuardrail.Suspension suspension = QueryGuardrail.suspend()) {
+            List<TeamStatsDto> stats = teamQuerydslSupportRepository.stats().stream()
+                    .sorted(Comparator.comparing(TeamStatsDto::getTeamId))
+                    .collect(Collectors.toList());
+            return new Snapshot(Collections.unmodifiableList(stats), loadedAt, loadedGeneration);
+        }
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return current != null
+                && current.generation == generation.get()
+                && age(current) < properties.getTtl().toNanos();
+    }
+
+    private long age(Snapshot current) {
+        return nanoClock.getAsLong() - current.loadedAt;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refresher instanceof ExecutorService) {
+            ((ExecutorService) refresher).shutdownNow();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Snapshot {
+        private final List<TeamStatsDto> stats;
+        private final long loadedAt;
+        private final long generation;
+    }
+}
@@ -0,0 +1,77 @@
+package com.study.querydsl.controller;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HdrHistogram 과 같은 방식의 로그-선형 히스토그램. 마이크로초 단위로 기록하고, 2 의 거듭제곱 구간마다 64 칸으로 나눠서
+ * 어느 값이든 상대 오차 1.6% 안쪽으로 백분위를 돌려준다. 여러 스레드에서 동시에 기록해도 된다.
+ */
+class LatencyHistogram {
+
+    // 0 ~ 127 은 1 마이크로초 단위로, 그 위는 [2^k, 2^(k+1)) 구간마다 64 칸
+    private static final int SUB_BUCKETS = 128;
+    private static final int HALF = SUB_BUCKETS / 2;
+    private static final int MAX_SHIFT = 34;
+    private static final long MAX_VALUE = ((long) SUB_BUCKETS << MAX_SHIFT) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS + MAX_SHIFT * HALF);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    void recordNanos(long nanos) {
+        long micros = Math.min(MAX_VALUE, Math.max(0, nanos / 1000));
+        counts.incrementAndGet(indexOf(micros));
+        total.incrementAndGet();
+        sum.addAndGet(micros);
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    long getTotalCount() {
+        return total.get();
+    }
+
+    double getMeanMillis() {
+        long count = total.get();
+        return count == 0 ? 0 : sum.get() / 1000.0 / count;
+    }
+
+    double getMaxMillis() {
+        return max.get() / 1000.0;
+    }
+
+    /**
+     * percentile(0 ~ 100) 에 해당하는 값. 그 칸에 들어가는 가장 큰 값을 돌려준다.
+     */
+    double percentileMillis(double percentile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max.get()) / 1000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    static int indexOf(long micros) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(micros) - 6);
+        int sub = (int) (micros >>> shift);
+        return shift == 0 ? sub : SUB_BUCKETS + (shift - 1) * HALF + (sub - HALF);
+    }
+
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF + 1;
+        long lowest = (long) ((index - SUB_BUCKETS) % HALF + HALF) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
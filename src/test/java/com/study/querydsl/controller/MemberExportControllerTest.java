@@ -0,0 +1,38 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.config.MemberExportProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class MemberExportControllerTest {
+
+    @Autowired WebApplicationContext context;
+    @Autowired MemberExportProperties properties;
+
+    @Test
+    void exportUsesItsOwnAsyncTimeout() throws Exception {
+        //given
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        //when
+        MvcResult result = mockMvc.perform(get("/members/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+        //then
+        assertThat(result.getRequest().getAsyncContext().getTimeout())
+                .isEqualTo(properties.getTimeout().toMillis());
+    }
+}
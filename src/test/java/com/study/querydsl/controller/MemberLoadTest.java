@@ -0,0 +1,279 @@
+package com.study.querydsl.controller;
+
+import com.study.querydsl.QuerydslApplication;
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.Team;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * /v1, /v2, /v3 회원 검색에 일정한 도착률(open model)로 요청을 보내고 엔드포인트별 지연 백분위와 처리량을 남긴다.
+ * 메모리 H2 에 회원을 넣고 앱을 띄우므로 공용 DB 는 건드리지 않는다.
+ *
+ * mvn test -P load-test [-Dload-test.rate=300 -Dload-test.duration=60 -Dload-test.baseline=target/load-test/이전.csv]
+ *
+ * 지연은 요청을 보내야 했던 시각부터 잰다. 앱이 밀려서 늦게 보낸 요청도 그만큼 느린 것으로 센다(coordinated omission).
+ * baseline 을 주면 엔드포인트별로 비교해서 출력하고, p99 가 load-test.max-p99-regression(%) 보다 나빠지면 실패한다.
+ */
+@EnabledIfSystemProperty(named = "load-test", matches = "true")
+class MemberLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(MemberLoadTest.class);
+
+    private static final String[] ENDPOINTS = {"/v1/members", "/v2/members", "/v3/members"};
+    private static final int[] PAGE_DEPTHS = {0, 0, 0, 1, 1, 5, 20, 100};
+    private static final int PAGE_SIZE = 20;
+    // 응답을 기다리는 요청이 이만큼 쌓이면 더 보내지 않고 버린 요청으로 센다.
+    private static final int MAX_IN_FLIGHT = 10_000;
+
+    private final int rate = Integer.getInteger("load-test.rate", 200);
+    private final int warmupSeconds = Integer.getInteger("load-test.warmup", 10);
+    private final int durationSeconds = Integer.getInteger("load-test.duration", 30);
+    private final int members = Integer.getInteger("load-test.members", 20_000);
+    private final int teams = Integer.getInteger("load-test.teams", 20);
+    private final long seed = Long.getLong("load-test.seed", 42L);
+    private final String reportDir = System.getProperty("load-test.report-dir", "target/load-test");
+    private final String baseline = System.getProperty("load-test.baseline", "");
+    private final double maxP99Regression = Double.parseDouble(System.getProperty("load-test.max-p99-regression", "-1"));
+
+    @Test
+    void memberEndpoints() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                // local 프로필의 InitMember 가 돌지 않도록 프로필을 바꾼다.
+                .run("--spring.profiles.active=load-test",
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load-test;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.properties.hibernate.use_sql_comments=false")) {
+            seed(context.getBean(EntityManagerFactory.class));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            ExecutorService clientExecutor = Executors.newFixedThreadPool(16);
+            try {
+                HttpClient client = HttpClient.newBuilder()
+                        .executor(clientExecutor)
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .build();
+                Random random = new Random(seed);
+                run(client, port, random, warmupSeconds, new LinkedHashMap<>());
+                Map<String, Stats> stats = new LinkedHashMap<>();
+                for (String endpoint : ENDPOINTS) {
+                    stats.put(endpoint, new Stats());
+                }
+                long elapsed = run(client, port, random, durationSeconds, stats);
+
+                List<String> report = report(stats, elapsed);
+                log.info("load test result\n{}", String.join("\n", report));
+                Path file = write(report);
+                log.info("load test report: {}", file.toAbsolutePath());
+                compareWithBaseline(report);
+                assertThat(stats.values().stream().mapToLong(s -> s.histogram.getTotalCount()).sum()).isPositive();
+            } finally {
+                clientExecutor.shutdownNow();
+            }
+        }
+    }
+
+    private void seed(EntityManagerFactory emf) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            List<Team> saved = new ArrayList<>();
+            for (int t = 0; t < teams; t++) {
+                Team team = new Team("team" + t);
+                em.persist(team);
+                saved.add(team);
+            }
+            for (int i = 0; i < members; i++) {
+                em.persist(new Member("member" + i, i % 100, saved.get(i % teams)));
+                if (i % 1000 == 999) {
+                    em.flush();
+                    em.clear();
+                    saved.replaceAll(team -> em.getReference(Team.class, team.getId()));
+                }
+            }
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * seconds 동안 rate 로 요청을 보낸다. stats 에 없는 엔드포인트(워밍업)는 기록하지 않는다. 걸린 시간(ns)을 돌려준다.
+     */
+    private long run(HttpClient client, int port, Random random, int seconds, Map<String, Stats> stats) throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long count = (long) rate * seconds;
+        AtomicInteger inFlight = new AtomicInteger();
+        long startedAt = System.nanoTime();
+        for (long i = 0; i < count; i++) {
+            long intendedAt = startedAt + i * interval;
+            long wait = intendedAt - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            String endpoint = ENDPOINTS[random.nextInt(ENDPOINTS.length)];
+            Stats endpointStats = stats.get(endpoint);
+            if (inFlight.get() >= MAX_IN_FLIGHT) {
+                if (endpointStats != null) {
+                    endpointStats.dropped.incrementAndGet();
+                }
+                continue;
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + endpoint + "?" + query(endpoint, random)))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            inFlight.incrementAndGet();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.decrementAndGet();
+                        if (endpointStats != null) {
+                            endpointStats.record(System.nanoTime() - intendedAt, response, error);
+                        }
+                    });
+        }
+        // 보낸 요청이 다 끝날 때까지 기다린다.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return System.nanoTime() - startedAt;
+    }
+
+    private String query(String endpoint, Random random) {
+        String condition;
+        switch (random.nextInt(5)) {
+            case 0:
+                condition = "";
+                break;
+            case 1:
+                condition = "username=member" + random.nextInt(members);
+                break;
+            case 2:
+                condition = "teamName=team" + random.nextInt(teams);
+                break;
+            case 3:
+                int age = random.nextInt(90);
+                condition = "ageGoe=" + age + "&ageLoe=" + (age + 10);
+                break;
+            default:
+                condition = "teamName=team" + random.nextInt(teams) + "&ageGoe=" + random.nextInt(100);
+        }
+        if (endpoint.equals("/v1/members")) {
+            return condition;
+        }
+        String page = "page=" + PAGE_DEPTHS[random.nextInt(PAGE_DEPTHS.length)] + "&size=" + PAGE_SIZE;
+        return condition.isEmpty() ? page : condition + "&" + page;
+    }
+
+    private List<String> report(Map<String, Stats> stats, long elapsedNanos) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "# rate=%d/s duration=%ds warmup=%ds members=%d teams=%d seed=%d",
+                rate, durationSeconds, warmupSeconds, members, teams, seed));
+        lines.add("endpoint,requests,errors,dropped,truncated,throughput,mean_ms,p50_ms,p90_ms,p99_ms,p999_ms,max_ms");
+        stats.forEach((endpoint, s) -> {
+            LatencyHistogram h = s.histogram;
+            lines.add(String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f",
+                    endpoint, h.getTotalCount(), s.errors.get(), s.dropped.get(), s.truncated.get(),
+                    h.getTotalCount() / seconds, h.getMeanMillis(),
+                    h.percentileMillis(50), h.percentileMillis(90), h.percentileMillis(99), h.percentileMillis(99.9),
+                    h.getMaxMillis()));
+        });
+        return lines;
+    }
+
+    private Path write(List<String> report) throws IOException {
+        Path dir = Paths.get(reportDir);
+        Files.createDirectories(dir);
+        String name = "member-load-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv";
+        return Files.write(dir.resolve(name), report, StandardCharsets.UTF_8);
+    }
+
+    private void compareWithBaseline(List<String> report) throws IOException {
+        if (baseline.isEmpty()) {
+            return;
+        }
+        Map<String, String[]> previous = rows(Files.readAllLines(Paths.get(baseline), StandardCharsets.UTF_8));
+        List<String> regressions = new ArrayList<>();
+        rows(report).forEach((endpoint, current) -> {
+            String[] before = previous.get(endpoint);
+            if (before == null) {
+                return;
+            }
+            double p99Change = change(before, current, 9);
+            log.info(String.format(Locale.ROOT, "%s vs baseline: throughput %+.1f%%, p50 %+.1f%%, p99 %+.1f%%",
+                    endpoint, change(before, current, 5), change(before, current, 7), p99Change));
+            if (maxP99Regression >= 0 && p99Change > maxP99Regression) {
+                regressions.add(endpoint + " p99 " + before[9] + "ms -> " + current[9] + "ms");
+            }
+        });
+        assertThat(regressions).as("p99 regressions over %.1f%%", maxP99Regression).isEmpty();
+    }
+
+    private static Map<String, String[]> rows(List<String> lines) {
+        Map<String, String[]> rows = new LinkedHashMap<>();
+        for (String line : lines) {
+            if (!line.startsWith("#") && !line.startsWith("endpoint,")) {
+                String[] columns = line.split(",");
+                rows.put(columns[0], columns);
+            }
+        }
+        return rows;
+    }
+
+    private static double change(String[] before, String[] after, int column) {
+        double previous = Double.parseDouble(before[column]);
+        return previous == 0 ? 0 : (Double.parseDouble(after[column]) - previous) / previous * 100;
+    }
+
+    private static class Stats {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong truncated = new AtomicLong();
+
+        void record(long latencyNanos, HttpResponse<?> response, Throwable error) {
+            histogram.recordNanos(latencyNanos);
+            if (error != null || response.statusCode() >= 400) {
+                errors.incrementAndGet();
+            } else if (response.headers().firstValue(QueryGuardrailAdvice.TRUNCATED_HEADER).isPresent()) {
+                truncated.incrementAndGet();
+            }
+        }
+    }
+}
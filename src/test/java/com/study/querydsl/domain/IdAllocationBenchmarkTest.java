@@ -0,0 +1,83 @@
+package com.study.querydsl.domain;
+
+import com.study.querydsl.QuerydslApplication;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 회원 insert 처리량을 id 블록 할당 / JDBC batch 전후로 비교한다. 설정마다 이 테스트만 쓰는 메모리 H2 에 스키마를 새로 만든다.
+ *
+ * mvn test -Dtest=IdAllocationBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class IdAllocationBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(IdAllocationBenchmarkTest.class);
+    private static final int TEAMS = 100;
+    private static final int MEMBERS_PER_TEAM = 100;
+
+    @Test
+    void insertThroughput(){
+        //given
+        // 예전 설정: persist 마다 시퀀스 호출, batch 없음
+        double before = membersPerSecond(1, 1);
+        //when
+        double after = membersPerSecond(50, 100);
+        //then
+        log.info("insert throughput: before {} rows/s, after {} rows/s (x{})",
+                Math.round(before), Math.round(after), String.format("%.1f", after / before));
+        assertThat(after).isGreaterThan(before);
+    }
+
+    private double membersPerSecond(int blockSize, int batchSize) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                // application.yml 보다 우선하도록 커맨드라인 인자로 넘긴다.
+                .run("--spring.datasource.url=jdbc:h2:mem:id-benchmark-" + blockSize + "-" + batchSize,
+                        "--spring.jpa.properties.querydsl.id.block-size=" + blockSize,
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=true")) {
+            EntityManagerFactory emf = context.getBean(EntityManagerFactory.class);
+            insert(emf, 10); // 워밍업
+            long startedAt = System.nanoTime();
+            insert(emf, TEAMS);
+            long elapsed = System.nanoTime() - startedAt;
+            double rate = (TEAMS * (MEMBERS_PER_TEAM + 1)) / (elapsed / 1_000_000_000.0);
+            log.info("block-size {}, batch_size {}: {} rows/s, {} statements prepared",
+                    blockSize, batchSize, Math.round(rate), emf.unwrap(SessionFactory.class).getStatistics().getPrepareStatementCount());
+            return rate;
+        }
+    }
+
+    private void insert(EntityManagerFactory emf, int teams) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            for (int i = 0; i < teams; i++) {
+                Team team = new Team("benchmarkTeam" + i);
+                em.persist(team);
+                for (int j = 0; j < MEMBERS_PER_TEAM; j++) {
+                    em.persist(new Member("benchmarkMember" + i + "_" + j, j, team));
+                }
+                // 팀 하나(회원 100명)마다 내려보내고 비운다.
+                em.flush();
+                em.clear();
+            }
+            em.getTransaction().rollback();
+        } finally {
+            em.close();
+        }
+    }
+}
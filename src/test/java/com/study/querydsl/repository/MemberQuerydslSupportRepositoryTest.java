@@ -3,11 +3,13 @@ package com.study.querydsl.repository;
 import com.study.querydsl.domain.Member;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.repository.support.UnsupportedSortException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -43,4 +45,17 @@ class MemberQuerydslSupportRepositoryTest {
         assertEquals(result.getSize(), 3);
         assertThat(result.getContent()).extracting("username").containsExactly("member0","member1","member2");
     }
-}
\ No newline at end of file
+
+    @Test
+    void rejectUnindexedSortTest(){
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by("team.leader.username"));
+        //then
+        assertThrows(UnsupportedSortException.class,
+                () -> memberQuerydslSupportRepository.applyPagination(condition, pageRequest));
+        // 조인한 팀 이름으로는 인덱스를 쓸 수 없다.
+        assertThrows(UnsupportedSortException.class,
+                () -> memberQuerydslSupportRepository.applyPagination(condition, PageRequest.of(0, 3, Sort.by("team.name"))));
+    }
+}
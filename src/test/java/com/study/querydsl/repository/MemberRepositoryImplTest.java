@@ -4,9 +4,12 @@ import com.study.querydsl.domain.Member;
 import com.study.querydsl.domain.Team;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.repository.support.SqlCapture;
+import com.study.querydsl.repository.support.SqlCaptureConfiguration;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,11 +22,14 @@ import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 @Transactional
+@Import(SqlCaptureConfiguration.class)
 class MemberRepositoryImplTest {
 
     @Autowired
     EntityManager em;
 
+    @Autowired SqlCapture sqlCapture;
+
     @Autowired MemberRepository memberRepository;
 
     @Test
@@ -66,4 +72,44 @@ class MemberRepositoryImplTest {
         assertEquals(result.getSize(), 3);
         assertThat(result.getContent()).extracting("username").containsExactly("member0","member1","member2");
     }
-}
\ No newline at end of file
+
+    @Test
+    void searchByTeamIdWithoutJoin(){
+        //given
+        Team teamA = new Team("JoinlessTeamA");
+        em.persist(teamA);
+        em.persist(new Member("joinlessMember1", 10, teamA));
+        em.persist(new Member("joinlessMember2", 20, teamA));
+        em.persist(new Member("joinlessMember3", 30, null));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamId(teamA.getId());
+        condition.setAgeGoe(15);
+        condition.setTeamIdOnly(true);
+
+        //when
+        List<SqlCapture.CapturedStatement> statements = sqlCapture.capture(() -> memberRepository.search(condition));
+        List<MemberTeamDto> result = memberRepository.search(condition);
+        //then
+        assertThat(result).extracting("username").containsExactly("joinlessMember2");
+        assertThat(result.get(0).getTeamId()).isEqualTo(teamA.getId());
+        assertThat(result.get(0).getTeamName()).isNull();
+        assertThat(statements).filteredOn(SqlCapture.CapturedStatement::isSelect).hasSize(1)
+                .allMatch(statement -> !statement.getSql().toLowerCase().contains("join"));
+    }
+
+    @Test
+    void searchReturnsTeamNameByDefault(){
+        //given
+        Team teamA = new Team("JoinedTeamA");
+        em.persist(teamA);
+        em.persist(new Member("joinedMember1", 10, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamId(teamA.getId());
+        //when
+        List<MemberTeamDto> result = memberRepository.search(condition);
+        //then
+        assertThat(result).extracting("teamName").containsExactly("JoinedTeamA");
+    }
+}
@@ -0,0 +1,74 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.Team;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberScanRepositoryTest {
+
+    private static final String PREFIX = "ScanMember";
+
+    @Autowired EntityManager em;
+    @Autowired MemberScanRepository memberScanRepository;
+
+    Team team;
+
+    @BeforeEach
+    void setUp(){
+        team = new Team("ScanTeam");
+        em.persist(team);
+        for (int i = 0; i < 30; i++) {
+            em.persist(new Member(PREFIX + i, i, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void scanAllKeepsPersistenceContextEmpty(){
+        //given
+        List<Member> scanned = new ArrayList<>();
+        //when
+        long rows = memberScanRepository.scanAll(m -> {
+            if (m.getUsername().startsWith(PREFIX)) {
+                scanned.add(m);
+            }
+        });
+        //then
+        assertThat(rows).isGreaterThanOrEqualTo(30);
+        assertThat(scanned).hasSize(30)
+                .allMatch(m -> m.getTeam().getId().equals(team.getId()))
+                .noneMatch(em::contains);
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    void scanMemberTeamsProjectsDto(){
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("ScanTeam");
+        condition.setAgeGoe(20);
+        List<MemberTeamDto> scanned = new ArrayList<>();
+        //when
+        long rows = memberScanRepository.scanMemberTeams(condition, scanned::add);
+        //then
+        assertThat(rows).isEqualTo(10);
+        assertThat(scanned).extracting(MemberTeamDto::getUsername).startsWith(PREFIX + "20", PREFIX + "21");
+        assertThat(scanned).extracting(MemberTeamDto::getTeamName).containsOnly("ScanTeam");
+    }
+}
@@ -0,0 +1,74 @@
+package com.study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.MemberChangedEvent;
+import com.study.querydsl.domain.Team;
+import com.study.querydsl.dto.MemberUpsertResult;
+import com.study.querydsl.dto.MemberUpsertResult.Outcome;
+import com.study.querydsl.dto.MemberUpsertRow;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.study.querydsl.domain.QMember.member;
+import static com.study.querydsl.repository.support.UsernameSearch.usernameContains;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@RecordApplicationEvents
+class MemberUpsertRepositoryTest {
+
+    @Autowired EntityManager em;
+    @Autowired MemberUpsertRepository memberUpsertRepository;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired ApplicationEvents events;
+
+    @Test
+    void upsertReturnsOutcomePerRow(){
+        //given
+        Team team = new Team("UpsertTeam");
+        em.persist(team);
+        Member changed = new Member("upsertMember1", 10, team);
+        Member same = new Member("upsertMember2", 20, team);
+        em.persist(changed);
+        em.persist(same);
+        em.flush();
+
+        List<MemberUpsertRow> rows = Arrays.asList(
+                new MemberUpsertRow(changed.getId(), "upsertMember1-old", 11, team.getId()),
+                new MemberUpsertRow(null, "upsertMember3", 30, team.getId()),
+                new MemberUpsertRow(changed.getId(), "upsertMember1-new", 12, null),
+                new MemberUpsertRow(same.getId(), "upsertMember2", 20, team.getId()),
+                new MemberUpsertRow(Long.MAX_VALUE, "upsertGhost", 40, null));
+
+        //when
+        List<MemberUpsertResult> results = memberUpsertRepository.upsert(rows);
+
+        //then
+        assertThat(results).extracting(MemberUpsertResult::getOutcome).containsExactly(
+                Outcome.SUPERSEDED, Outcome.INSERTED, Outcome.UPDATED, Outcome.UNCHANGED, Outcome.NOT_FOUND);
+        // 바뀐 회원은 영속성 컨텍스트에서 내려서 다음 조회 때 새 값을 읽는다.
+        assertThat(em.contains(changed)).isFalse();
+        Member updated = em.find(Member.class, changed.getId());
+        assertThat(updated.getUsername()).isEqualTo("upsertMember1-new");
+        assertThat(updated.getAge()).isEqualTo(12);
+        assertThat(updated.getTeam()).isNull();
+        Long insertedId = results.get(1).getMemberId();
+        assertThat(em.find(Member.class, insertedId).getUsername()).isEqualTo("upsertMember3");
+        // username gram 도 같이 맞춰서 contains 검색에 걸린다.
+        assertThat(queryFactory.selectFrom(member).where(usernameContains("ertMember1-ne")).fetch())
+                .extracting("username").containsExactly("upsertMember1-new");
+        assertThat(events.stream(MemberChangedEvent.class))
+                .flatExtracting(MemberChangedEvent::getMemberIds)
+                .containsExactlyInAnyOrder(insertedId, changed.getId());
+    }
+}
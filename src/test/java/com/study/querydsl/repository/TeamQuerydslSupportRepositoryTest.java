@@ -0,0 +1,177 @@
+package com.study.querydsl.repository;
+
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.Team;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.TeamStatsDto;
+import com.study.querydsl.repository.support.FetchPlan;
+import com.study.querydsl.repository.support.SqlCapture;
+import com.study.querydsl.repository.support.SqlCaptureConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.study.querydsl.domain.QMember.member;
+import static com.study.querydsl.domain.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@Import(SqlCaptureConfiguration.class)
+class TeamQuerydslSupportRepositoryTest {
+
+    private static final String PREFIX = "FetchPlanTeam";
+
+    @Autowired EntityManager em;
+    @Autowired SqlCapture sqlCapture;
+    @Autowired TeamQuerydslSupportRepository teamQuerydslSupportRepository;
+    @Autowired MemberQuerydslSupportRepository memberQuerydslSupportRepository;
+
+    PersistenceUnitUtil unitUtil;
+
+    @BeforeEach
+    void setUp(){
+        for (int i = 0; i < 5; i++) {
+            Team team = new Team(PREFIX + i);
+            em.persist(team);
+            for (int j = 0; j < 3; j++) {
+                em.persist(new Member(PREFIX + "Member" + i + "_" + j, j, team));
+            }
+        }
+        em.flush();
+        em.clear();
+        unitUtil = em.getEntityManagerFactory().getPersistenceUnitUtil();
+    }
+
+    @Test
+    void noneLeavesMembersLazy(){
+        //when
+        int statements = selects(() -> teamQuerydslSupportRepository.findByNameStartsWith(PREFIX, FetchPlan.none()));
+        List<Team> teams = teamQuerydslSupportRepository.findByNameStartsWith(PREFIX, FetchPlan.none());
+        //then
+        assertThat(statements).isEqualTo(1);
+        assertThat(teams).hasSize(5).noneMatch(t -> unitUtil.isLoaded(t, "members"));
+    }
+
+    @Test
+    void fetchJoinLoadsMembersInOneQuery(){
+        //given
+        FetchPlan plan = FetchPlan.none().fetchJoin(team.members);
+        //when
+        int statements = selects(() -> initializeMembers(teamQuerydslSupportRepository.findByNameStartsWith(PREFIX, plan)));
+        //then
+        assertThat(statements).isEqualTo(1);
+        assertThat(teamQuerydslSupportRepository.findByNameStartsWith(PREFIX, plan)).hasSize(5);
+    }
+
+    @Test
+    void batchLoadsMembersPerChunk(){
+        //given
+        FetchPlan plan = FetchPlan.none().batch(team.members, 2);
+        //when
+        int statements = selects(() -> initializeMembers(teamQuerydslSupportRepository.findByNameStartsWith(PREFIX, plan)));
+        //then
+        assertThat(statements).isEqualTo(1 + 3);
+    }
+
+    @Test
+    void subselectLoadsMembersInOneExtraQuery(){
+        //given
+        FetchPlan plan = FetchPlan.none().subselect(team.members);
+        //when
+        int statements = selects(() -> initializeMembers(teamQuerydslSupportRepository.findByNameStartsWith(PREFIX, plan)));
+        //then
+        assertThat(statements).isEqualTo(1 + 1);
+    }
+
+    @Test
+    void memberSearchFetchJoinsTeam(){
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(PREFIX + "0");
+        FetchPlan plan = FetchPlan.none().fetchJoin(member.team);
+        //when
+        List<SqlCapture.CapturedStatement> statements = sqlCapture.capture(
+                () -> memberQuerydslSupportRepository.search(condition, plan));
+        List<Member> result = memberQuerydslSupportRepository.search(condition, plan);
+        //then
+        assertThat(result).hasSize(3).allMatch(m -> unitUtil.isLoaded(m, "team"));
+        assertThat(result).extracting(m -> m.getTeam().getName()).containsOnly(PREFIX + "0");
+        // search 가 이미 건 member.team 조인에 fetch 만 붙이고, 조인을 하나 더 만들지 않는다.
+        assertThat(statements).hasSize(1);
+        assertThat(statements.get(0).getSql().split("join team ", -1)).hasSize(2);
+    }
+
+    @Test
+    void pagedCollectionFetchPagesTeamIdsFirst(){
+        //given
+        FetchPlan plan = FetchPlan.none().fetchJoin(team.members);
+        PageRequest pageRequest = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "name"));
+        //when
+        List<SqlCapture.CapturedStatement> statements = sqlCapture.capture(
+                () -> teamQuerydslSupportRepository.searchPage(PREFIX, pageRequest, plan));
+        Page<Team> result = teamQuerydslSupportRepository.searchPage(PREFIX, pageRequest, plan);
+        //then
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getContent()).extracting("name").containsExactly(PREFIX + "2", PREFIX + "1");
+        assertThat(result.getContent()).allMatch(t -> unitUtil.isLoaded(t, "members") && t.getMembers().size() == 3);
+        // id 페이징 쿼리에만 limit 가 붙고, fetch join 쿼리는 그 id 들만 읽는다.
+        assertThat(statements).filteredOn(SqlCapture.CapturedStatement::isSelect).hasSize(3);
+        assertThat(statements).filteredOn(statement -> statement.getSql().contains("limit")).hasSize(1)
+                .allMatch(statement -> !statement.getSql().contains("join"));
+    }
+
+    @Test
+    void statsInOneQuery(){
+        //given
+        Team statsTeam = new Team(PREFIX + "Stats");
+        Team emptyTeam = new Team(PREFIX + "Empty");
+        em.persist(statsTeam);
+        em.persist(emptyTeam);
+        for (int age : new int[]{15, 25, 35, 45}) {
+            em.persist(new Member(PREFIX + "StatsMember" + age, age, statsTeam));
+        }
+        em.flush();
+        em.clear();
+        //when
+        int statements = selects(() -> teamQuerydslSupportRepository.stats());
+        List<TeamStatsDto> stats = teamQuerydslSupportRepository.stats();
+        //then
+        assertThat(statements).isEqualTo(1);
+        TeamStatsDto result = stats.stream().filter(s -> s.getTeamId().equals(statsTeam.getId())).findFirst().get();
+        assertThat(result.getMemberCount()).isEqualTo(4);
+        assertThat(result.getAgeSum()).isEqualTo(120);
+        assertThat(result.getAgeAvg()).isEqualTo(30.0);
+        assertThat(result.getAgeMin()).isEqualTo(15);
+        assertThat(result.getAgeMax()).isEqualTo(45);
+        assertThat(result.getUnder20Count()).isEqualTo(1);
+        assertThat(result.getTwentiesCount()).isEqualTo(1);
+        assertThat(result.getThirtyPlusCount()).isEqualTo(2);
+        TeamStatsDto empty = stats.stream().filter(s -> s.getTeamId().equals(emptyTeam.getId())).findFirst().get();
+        assertThat(empty.getMemberCount()).isZero();
+        assertThat(empty.getUnder20Count()).isZero();
+        assertThat(empty.getAgeMax()).isNull();
+    }
+
+    private int selects(Supplier<?> action) {
+        int count = (int) sqlCapture.capture(action).stream().filter(SqlCapture.CapturedStatement::isSelect).count();
+        em.clear();
+        return count;
+    }
+
+    private List<Team> initializeMembers(List<Team> teams) {
+        teams.forEach(t -> assertThat(t.getMembers()).hasSize(3));
+        return teams;
+    }
+}
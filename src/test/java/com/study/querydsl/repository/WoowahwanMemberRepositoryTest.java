@@ -1,15 +1,19 @@
 package com.study.querydsl.repository;
 
+import com.querydsl.jpa.impl.JPAQueryFactory;
 import com.study.querydsl.domain.Member;
 import com.study.querydsl.domain.Team;
 import com.study.querydsl.dto.MemberDto;
 import com.study.querydsl.dto.MemberSearchCondition;
 import com.study.querydsl.dto.MemberTeamDto;
 import com.study.querydsl.dto.MemberTeamDto2;
+import com.study.querydsl.repository.support.SqlCapture;
+import com.study.querydsl.repository.support.SqlCaptureConfiguration;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,10 +21,14 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
 import java.util.List;
 
+import static com.study.querydsl.domain.QMember.member;
+import static com.study.querydsl.repository.support.UsernameSearch.usernameContains;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 @Transactional
+@Import(SqlCaptureConfiguration.class)
 class WoowahwanMemberRepositoryTest {
 
     @Autowired
@@ -29,6 +37,15 @@ class WoowahwanMemberRepositoryTest {
     @Autowired
     EntityManager em;
 
+    @Autowired
+    UsernameGramRepository usernameGramRepository;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    SqlCapture sqlCapture;
+
     @Test
     void searchTest(){
         Team teamA = new Team("TeamA");
@@ -176,6 +193,68 @@ class WoowahwanMemberRepositoryTest {
         }
     }
 
+    @Test
+    void noOffsetUsernameGramTest(){
+        //given
+        Team teamA = new Team("TeamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        Member other = new Member("other1", 20, teamA);
+        em.persist(member1);
+        em.persist(other);
+        //when
+        List<MemberDto> memberDtos = woowahwanMemberRepository.noOffset(null, 1000);
+        //then
+        assertThat(memberDtos).extracting("username").contains("member1").doesNotContain("other1");
+    }
+
+    @Test
+    void selectiveGramTest(){
+        //given
+        Team teamA = new Team("TeamA");
+        em.persist(teamA);
+        em.persist(new Member("qzxRareUser", 10, teamA));
+        // 회원이 적으면 드문 gram 이라도 스캔하는 편이 낫다.
+        for (int i = 0; i < 30; i++) {
+            em.persist(new Member("gramFiller" + i, i, teamA));
+        }
+        em.flush();
+        //when
+        String gram = usernameGramRepository.selectiveGram("qzxRare");
+        //then
+        assertThat(gram).isNotNull();
+        assertThat(queryFactory.select(member.username).from(member).where(usernameContains("qzxRare", gram)).fetch())
+                .containsExactly("qzxRareUser");
+        // 아무도 가지지 않은 gram 이 있으면 그 gram 으로 좁힌다.
+        assertThat(usernameGramRepository.selectiveGram("qzxNobody")).isNotNull();
+        assertThat(usernameGramRepository.selectiveGram("ab")).isNull();
+    }
+
+    @Test
+    void selectiveGramIsCountedOnceTest(){
+        //given
+        String gram = usernameGramRepository.selectiveGram("qzxCached");
+        //when
+        List<SqlCapture.CapturedStatement> statements =
+                sqlCapture.capture(() -> usernameGramRepository.selectiveGram("qzxCached"));
+        //then
+        assertThat(statements).isEmpty();
+        assertThat(usernameGramRepository.selectiveGram("qzxCached")).isEqualTo(gram);
+    }
+
+    @Test
+    void noOffsetAfterBatchUpdateTest(){
+        //given
+        Team teamA = new Team("TeamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        //when
+        woowahwanMemberRepository.batchUpdate();
+        List<MemberDto> memberDtos = woowahwanMemberRepository.noOffset(null, 1000);
+        //then
+        assertThat(memberDtos).isEmpty();
+    }
+
     @Test
     @CacheEvict(allEntries = true)
     public void cacheEvictTest(){
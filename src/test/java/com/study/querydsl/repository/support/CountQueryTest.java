@@ -0,0 +1,119 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.QMember;
+import com.study.querydsl.domain.Team;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.repository.MemberQuerydslSupportRepository;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.support.SqlCapture.CapturedStatement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.study.querydsl.domain.QMember.member;
+import static com.study.querydsl.domain.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@Import(SqlCaptureConfiguration.class)
+class CountQueryTest {
+
+    private static final String PREFIX = "CountQueryTeam";
+
+    @Autowired EntityManager em;
+    @Autowired SqlCapture sqlCapture;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberQuerydslSupportRepository memberQuerydslSupportRepository;
+
+    @BeforeEach
+    void setUp(){
+        for (int i = 0; i < 2; i++) {
+            Team team = new Team(PREFIX + i);
+            em.persist(team);
+            for (int j = 0; j < 3; j++) {
+                em.persist(new Member(PREFIX + "Member" + i + "_" + j, 200 + j, team));
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void unusedToOneLeftJoinIsPruned(){
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(200);
+        PageRequest pageRequest = PageRequest.of(0, 2);
+        //when
+        List<CapturedStatement> statements = sqlCapture.capture(() -> memberRepository.searchPageComplex(condition, pageRequest));
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, pageRequest);
+        //then
+        assertThat(result.getTotalElements()).isEqualTo(6);
+        assertThat(countStatement(statements)).doesNotContain("join");
+    }
+
+    @Test
+    void joinUsedByPredicateIsKept(){
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(PREFIX + "0");
+        PageRequest pageRequest = PageRequest.of(0, 2);
+        //when
+        List<CapturedStatement> statements = sqlCapture.capture(() -> memberQuerydslSupportRepository.applyPagination2(condition, pageRequest));
+        Page<Member> result = memberQuerydslSupportRepository.applyPagination2(condition, pageRequest);
+        //then
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(countStatement(statements)).contains("join");
+    }
+
+    @Test
+    void derivedCountKeepsRowMultiplyingJoins(){
+        //given
+        QMember sub = new QMember("sub");
+        JPAQuery<?> collectionJoin = queryFactory
+                .select(team.name)
+                .from(team)
+                .leftJoin(team.members, member)
+                .where(team.name.startsWith(PREFIX))
+                .orderBy(team.name.asc())
+                .offset(1)
+                .limit(1);
+        JPAQuery<?> correlated = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(JPAExpressions.selectOne().from(sub)
+                        .where(sub.team.eq(team), sub.age.gt(member.age))
+                        .exists(),
+                        member.username.startsWith(PREFIX));
+        //when
+        long members = CountQuery.from(collectionJoin, queryFactory).fetchCount();
+        long notOldest = CountQuery.from(correlated, queryFactory).fetchCount();
+        //then
+        assertThat(members).isEqualTo(6);
+        assertThat(notOldest).isEqualTo(4);
+    }
+
+    private String countStatement(List<CapturedStatement> statements) {
+        return statements.stream()
+                .filter(CapturedStatement::isSelect)
+                .map(statement -> statement.getSql().replaceFirst("(?s)^\\s*/\\*.*?\\*/", "").toLowerCase())
+                .filter(sql -> sql.contains("count("))
+                .findFirst()
+                .orElseThrow();
+    }
+}
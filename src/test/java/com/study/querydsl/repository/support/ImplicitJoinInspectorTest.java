@@ -0,0 +1,109 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.QMember;
+import com.study.querydsl.domain.Team;
+import com.study.querydsl.repository.WoowahwanMemberRepository;
+import com.study.querydsl.repository.support.SqlCapture.CapturedStatement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.study.querydsl.domain.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@Transactional
+@Import(SqlCaptureConfiguration.class)
+class ImplicitJoinInspectorTest {
+
+    @Autowired EntityManager em;
+    @Autowired SqlCapture sqlCapture;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired WoowahwanMemberRepository woowahwanMemberRepository;
+
+    Team teamA;
+
+    @BeforeEach
+    void setUp(){
+        teamA = new Team("ImplicitJoinTeamA");
+        Team teamB = new Team("ImplicitJoinTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member leader = new Member("implicitJoinLeader", 10, teamA);
+        em.persist(leader);
+        em.persist(new Member("implicitJoinMember", 20, teamB));
+        teamA.setLeader(leader);
+        teamB.setLeader(leader);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void rewriteImplicitJoinToInnerJoin(){
+        //when
+        List<CapturedStatement> statements = sqlCapture.capture(() -> woowahwanMemberRepository.crossJoin());
+        //then
+        assertThat(statements).filteredOn(CapturedStatement::isSelect).hasSize(1)
+                .allMatch(statement -> !statement.getSql().toLowerCase().contains("cross join"));
+        assertThat(woowahwanMemberRepository.crossJoin())
+                .containsExactlyInAnyOrderElementsOf(woowahwanMemberRepository.crossJoinToInnerJoin());
+    }
+
+    @Test
+    void foreignKeyIdAccessNeedsNoJoin(){
+        //when
+        List<CapturedStatement> statements = sqlCapture.capture(() -> queryFactory
+                .selectFrom(member)
+                .where(member.team.id.eq(teamA.getId()))
+                .fetch());
+        //then
+        assertThat(statements).filteredOn(CapturedStatement::isSelect)
+                .allMatch(statement -> !statement.getSql().toLowerCase().contains(" join "));
+    }
+
+    @Test
+    void rewriteImplicitJoinInSubQuery(){
+        //given
+        QMember sub = new QMember("sub");
+        //when
+        List<CapturedStatement> statements = sqlCapture.capture(() -> queryFactory
+                .selectFrom(member)
+                .where(member.id.in(JPAExpressions
+                        .select(sub.id)
+                        .from(sub)
+                        .where(sub.team.name.eq("ImplicitJoinTeamA"))))
+                .fetch());
+        List<Member> result = queryFactory
+                .selectFrom(member)
+                .where(member.id.in(JPAExpressions
+                        .select(sub.id)
+                        .from(sub)
+                        .where(sub.team.name.eq("ImplicitJoinTeamA"))))
+                .fetch();
+        //then
+        assertThat(statements).filteredOn(CapturedStatement::isSelect)
+                .allMatch(statement -> !statement.getSql().toLowerCase().contains("cross join"));
+        assertThat(result).extracting("username").containsExactly("implicitJoinLeader");
+    }
+
+    @Test
+    void failFastOnImplicitJoin(){
+        //given
+        JPAQueryFactory failing = new InspectingJPAQueryFactory(em, new ImplicitJoinInspector(ImplicitJoinInspector.Mode.FAIL));
+        //then
+        assertThrows(QueryInspectionException.class, () -> failing
+                .selectFrom(member)
+                .where(member.team.id.gt(member.team.leader.id))
+                .fetch());
+    }
+}
@@ -0,0 +1,87 @@
+package com.study.querydsl.repository.support;
+
+import com.study.querydsl.repository.support.SqlCapture.CapturedStatement;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 레포지토리 쿼리들의 실행 계획을 모아서 full scan 하는 쿼리와 한 번도 쓰이지 않은 인덱스를 알려준다.
+ */
+public class IndexAdvisor {
+
+    private final Connection connection;
+    private final Map<String, List<QueryPlan>> plans = new LinkedHashMap<>();
+
+    public IndexAdvisor(Connection connection) {
+        this.connection = connection;
+    }
+
+    public List<QueryPlan> explain(String name, List<CapturedStatement> statements) throws SQLException {
+        List<QueryPlan> result = new ArrayList<>();
+        for (CapturedStatement statement : statements) {
+            if (statement.isSelect()) {
+                result.add(QueryPlan.explain(connection, statement.getSql()));
+            }
+        }
+        plans.put(name, result);
+        return result;
+    }
+
+    public Map<String, Set<String>> fullScans() {
+        Map<String, Set<String>> fullScans = new LinkedHashMap<>();
+        plans.forEach((name, queryPlans) -> {
+            Set<String> tables = new LinkedHashSet<>();
+            queryPlans.forEach(plan -> tables.addAll(plan.getTableScans()));
+            if (!tables.isEmpty()) {
+                fullScans.put(name, tables);
+            }
+        });
+        return fullScans;
+    }
+
+    /**
+     * 인덱스 없이 조건으로 거른 테이블. 쿼리 이름 -> "테이블 WHERE 조건"
+     */
+    public Map<String, List<String>> missingIndexes() {
+        Map<String, List<String>> missing = new LinkedHashMap<>();
+        plans.forEach((name, queryPlans) -> queryPlans.forEach(plan -> plan.getScanFilters().forEach((table, filter) ->
+                missing.computeIfAbsent(name, key -> new ArrayList<>()).add(table + " WHERE " + filter))));
+        return missing;
+    }
+
+    public Set<String> unusedIndexes(String... tables) throws SQLException {
+        Set<String> unused = new LinkedHashSet<>();
+        for (String table : tables) {
+            try (ResultSet rs = connection.getMetaData().getIndexInfo(null, "PUBLIC", table.toUpperCase(), false, false)) {
+                while (rs.next()) {
+                    String index = rs.getString("INDEX_NAME");
+                    if (index.startsWith("IDX_")) {
+                        unused.add(index);
+                    }
+                }
+            }
+        }
+        plans.values().forEach(queryPlans -> queryPlans.forEach(plan -> unused.removeAll(plan.getUsedIndexes())));
+        return unused;
+    }
+
+    public String report(String... tables) throws SQLException {
+        StringBuilder report = new StringBuilder("[index advisor]\n");
+        fullScans().forEach((name, scanned) ->
+                report.append("  full scan    ").append(name).append(" -> ").append(scanned).append('\n'));
+        missingIndexes().forEach((name, filters) -> filters.forEach(filter ->
+                report.append("  missing index? ").append(name).append(" -> ").append(filter).append('\n')));
+        for (String index : unusedIndexes(tables)) {
+            report.append("  unused index ").append(index).append('\n');
+        }
+        return report.toString();
+    }
+}
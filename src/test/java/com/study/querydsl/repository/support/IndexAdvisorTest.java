@@ -0,0 +1,94 @@
+package com.study.querydsl.repository.support;
+
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.Team;
+import com.study.querydsl.repository.MemberJpaRepository;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.TeamQuerydslSupportRepository;
+import com.study.querydsl.repository.WoowahwanMemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@Import(SqlCaptureConfiguration.class)
+class IndexAdvisorTest {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexAdvisorTest.class);
+
+    @Autowired EntityManager em;
+    @Autowired DataSource dataSource;
+    @Autowired SqlCapture sqlCapture;
+
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MemberRepository memberRepository;
+    @Autowired WoowahwanMemberRepository woowahwanMemberRepository;
+    @Autowired TeamQuerydslSupportRepository teamQuerydslSupportRepository;
+
+    IndexAdvisor advisor;
+    Team teamA;
+
+    @BeforeEach
+    void setUp(){
+        teamA = new Team("TeamA");
+        Team teamB = new Team("TeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 20; i++) {
+            em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+        advisor = new IndexAdvisor(DataSourceUtils.getConnection(dataSource));
+    }
+
+    @Test
+    void adviseRepositoryQueries() throws Exception {
+        //given
+        Map<String, Runnable> queries = RepositoryQueries.of(
+                memberJpaRepository, memberRepository, woowahwanMemberRepository, teamA.getId());
+        // 팀 이름순 페이지는 idx_team_name 순서대로 읽는다.
+        queries.put("TeamQuerydslSupportRepository.searchPage", () -> teamQuerydslSupportRepository.searchPage(
+                null, PageRequest.of(0, 3, Sort.by("name")), FetchPlan.none()));
+
+        //when
+        Map<String, List<QueryPlan>> plans = new LinkedHashMap<>();
+        for (Map.Entry<String, Runnable> query : queries.entrySet()) {
+            plans.put(query.getKey(), advisor.explain(query.getKey(), sqlCapture.capture(query.getValue())));
+        }
+
+        //then
+        log.info("{}", advisor.report("member", "team", "member_username_gram"));
+        // 조건 없이 전체를 읽는 예제 쿼리들만 full scan 이어야 한다. 새 쿼리가 여기에 걸리면 인덱스를 확인하자.
+        assertThat(advisor.fullScans()).containsOnlyKeys(
+                "MemberJpaRepository.findAll_Querydsl",
+                "WoowahwanMemberRepository.getMembers",
+                "WoowahwanMemberRepository.useCoveringIndex",
+                "WoowahwanMemberRepository.useOrderByNull",
+                "WoowahwanMemberRepository.crossJoinToInnerJoin",
+                "WoowahwanMemberRepository.crossJoin");
+        assertThat(advisor.missingIndexes()).isEmpty();
+        assertThat(advisor.unusedIndexes("member", "team", "member_username_gram")).isEmpty();
+        assertThat(plans.get("MemberJpaRepository.findByUsername_Querydsl"))
+                .allMatch(plan -> plan.uses("idx_member_username"));
+        assertThat(plans.get("WoowahwanMemberRepository.findSameTeamMember"))
+                .noneMatch(plan -> plan.isFullScan("member"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.study.querydsl.repository.support;
+
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.Team;
+import com.study.querydsl.dto.MemberUpsertRow;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.MemberUpsertRepository;
+import com.study.querydsl.repository.WoowahwanMemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@Import(SqlCaptureConfiguration.class)
+class MemberLookupFilterTest {
+
+    @Autowired EntityManager em;
+    @Autowired SqlCapture sqlCapture;
+    @Autowired MemberRepository memberRepository;
+    @Autowired WoowahwanMemberRepository woowahwanMemberRepository;
+    @Autowired MemberUpsertRepository memberUpsertRepository;
+
+    @Test
+    void bloomFilterHasNoFalseNegatives(){
+        //given
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        LongStream.range(0, 10_000).forEach(filter::put);
+        //when
+        long falsePositives = LongStream.range(10_000, 20_000).filter(filter::mightContain).count();
+        //then
+        assertThat(LongStream.range(0, 10_000).allMatch(filter::mightContain)).isTrue();
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    void missingMemberSkipsDatabase(){
+        //when
+        List<SqlCapture.CapturedStatement> statements = sqlCapture.capture(() -> {
+            assertThat(woowahwanMemberRepository.exist(Long.MAX_VALUE - 7)).isFalse();
+            assertThat(memberRepository.findByUsername("lookupFilterNobody")).isEmpty();
+            return null;
+        });
+        //then
+        assertThat(statements).isEmpty();
+    }
+
+    @Test
+    void persistedMemberIsFound(){
+        //given
+        Member member = new Member("lookupFilterMember", 10);
+        em.persist(member);
+        em.flush();
+        em.clear();
+        //when
+        Boolean exist = woowahwanMemberRepository.exist(member.getId());
+        List<Member> result = memberRepository.findByUsername("lookupFilterMember");
+        //then
+        assertThat(exist).isTrue();
+        assertThat(result).extracting(Member::getId).containsExactly(member.getId());
+    }
+
+    @Test
+    void unflushedMemberIsFound(){
+        //given
+        Member member = new Member("lookupFilterPending", 10);
+        em.persist(member);
+        //when
+        Boolean exist = woowahwanMemberRepository.exist(member.getId());
+        List<Member> result = memberRepository.findByUsername("lookupFilterPending");
+        //then
+        assertThat(exist).isTrue();
+        assertThat(result).containsExactly(member);
+    }
+
+    @Test
+    void bulkInsertedMemberIsFound(){
+        //given
+        Team team = new Team("lookupFilterTeam");
+        em.persist(team);
+        //when
+        memberUpsertRepository.upsert(Collections.singletonList(
+                new MemberUpsertRow(null, "lookupFilterUpserted", 20, team.getId())));
+        List<Member> result = memberRepository.findByUsername("lookupFilterUpserted");
+        //then
+        assertThat(result).hasSize(1);
+        assertThat(woowahwanMemberRepository.exist(result.get(0).getId())).isTrue();
+    }
+}
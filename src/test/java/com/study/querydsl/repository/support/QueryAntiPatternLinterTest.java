@@ -0,0 +1,93 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.Team;
+import com.study.querydsl.repository.MemberJpaRepository;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.WoowahwanMemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static com.study.querydsl.domain.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@Transactional
+class QueryAntiPatternLinterTest {
+
+    @Autowired EntityManager em;
+    @Autowired QueryAntiPatternLinter linter;
+
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MemberRepository memberRepository;
+    @Autowired WoowahwanMemberRepository woowahwanMemberRepository;
+
+    Team teamA;
+
+    @BeforeEach
+    void setUp(){
+        teamA = new Team("LinterTeamA");
+        em.persist(teamA);
+        em.persist(new Member("linterMember", 10, teamA));
+        em.flush();
+        em.clear();
+        linter.clear();
+    }
+
+    @Test
+    void registeredQueriesOnlyHaveKnownAntiPatterns(){
+        //when
+        RepositoryQueries.of(memberJpaRepository, memberRepository, woowahwanMemberRepository, teamA.getId())
+                .values()
+                .forEach(Runnable::run);
+        //then
+        // 문서에서 일부러 보여주는 예제들만 남아 있어야 한다. 새 쿼리가 여기에 걸리면 고치자.
+        assertThat(linter.getViolations()).containsOnlyKeys(
+                "MemberJpaRepository.findAll_Querydsl UNBOUNDED_FETCH",
+                "MemberJpaRepository.findByUsername_Querydsl UNBOUNDED_FETCH",
+                "MemberJpaRepository.searchByBuilder UNBOUNDED_FETCH",
+                "MemberJpaRepository.searchByWhere UNBOUNDED_FETCH",
+                "MemberRepositoryImpl.search UNBOUNDED_FETCH",
+                "MemberRepositoryImpl.searchPageSimple FETCH_RESULTS",
+                "WoowahwanMemberRepository.crossJoin UNBOUNDED_FETCH",
+                "WoowahwanMemberRepository.crossJoinToInnerJoin UNBOUNDED_FETCH",
+                "WoowahwanMemberRepository.entityInSelect ENTITY_IN_PROJECTION",
+                "WoowahwanMemberRepository.entityInSelect UNBOUNDED_FETCH",
+                "WoowahwanMemberRepository.findSameTeamMember UNBOUNDED_FETCH",
+                "WoowahwanMemberRepository.getMembers UNBOUNDED_FETCH",
+                "WoowahwanMemberRepository.useOrderByNull UNBOUNDED_FETCH");
+    }
+
+    @Test
+    void failOnUnboundedFetchAndLargeOffset(){
+        //given
+        JPAQueryFactory failing = new InspectingJPAQueryFactory(em, new QueryAntiPatternLinter(QueryAntiPatternLinter.Mode.FAIL, 1000));
+        //then
+        assertThrows(QueryInspectionException.class, () -> failing.selectFrom(member).fetch());
+        assertThrows(QueryInspectionException.class, () -> failing
+                .selectFrom(member)
+                .where(member.age.goe(10))
+                .fetch());
+        assertThrows(QueryInspectionException.class, () -> failing
+                .selectFrom(member)
+                .where(member.age.goe(10))
+                .offset(5000)
+                .limit(10)
+                .fetch());
+        assertDoesNotThrow(() -> failing
+                .selectFrom(member)
+                .where(member.age.goe(10))
+                .offset(100)
+                .limit(10)
+                .fetch());
+        assertDoesNotThrow(() -> failing.selectOne().from(member).fetchFirst());
+    }
+}
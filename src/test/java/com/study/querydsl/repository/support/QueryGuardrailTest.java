@@ -0,0 +1,292 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.config.QueryGuardrailProperties;
+import com.study.querydsl.controller.QueryGuardrailAdvice;
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.Team;
+import com.study.querydsl.repository.support.QueryGuardrailException.Reason;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.study.querydsl.domain.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@Transactional
+class QueryGuardrailTest {
+
+    private static final String PREFIX = "guardrailMember";
+
+    @Autowired EntityManager em;
+    @Autowired WebApplicationContext context;
+    @Autowired QueryGuardrailProperties globalProperties;
+
+    QueryGuardrailProperties.Endpoint configuredEndpoint;
+    QueryGuardrailProperties properties;
+    QueryGuardrail guardrail;
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    void setUp(){
+        Team team = new Team("guardrailTeam");
+        em.persist(team);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member(PREFIX + i, 10 + i, team));
+        }
+        em.flush();
+        em.clear();
+
+        configuredEndpoint = globalProperties.getEndpoints().get("/v1/members");
+        properties = new QueryGuardrailProperties();
+        properties.setMaxRows(3);
+        guardrail = new QueryGuardrail(properties, new QueryCircuitBreaker(properties.getCircuitBreaker()));
+        queryFactory = new InspectingJPAQueryFactory(em, guardrail);
+    }
+
+    @AfterEach
+    void tearDown(){
+        if (configuredEndpoint == null) {
+            globalProperties.getEndpoints().remove("/v1/members");
+        } else {
+            globalProperties.getEndpoints().put("/v1/members", configuredEndpoint);
+        }
+    }
+
+    @Test
+    void truncatesUnboundedFetchInsideScope(){
+        //when
+        List<String> outside = usernames();
+        List<String> inside;
+        boolean truncated;
+        try (QueryGuardrail.Scope scope = guardrail.open("test")) {
+            inside = usernames();
+            truncated = scope.isTruncated();
+        }
+        //then
+        assertThat(outside).hasSize(5);
+        assertThat(inside).containsExactly(PREFIX + 0, PREFIX + 1, PREFIX + 2);
+        assertThat(truncated).isTrue();
+        assertThat(QueryGuardrail.currentScope()).isNull();
+    }
+
+    @Test
+    void explicitLimitUnderMaxRowsIsNotTruncated(){
+        //when
+        try (QueryGuardrail.Scope scope = guardrail.open("test")) {
+            List<Member> result = queryFactory.selectFrom(member)
+                    .where(member.username.startsWith(PREFIX))
+                    .limit(2)
+                    .fetch();
+            //then
+            assertThat(result).hasSize(2);
+            assertThat(scope.isTruncated()).isFalse();
+        }
+    }
+
+    @Test
+    void failModeThrows(){
+        //given
+        properties.setMode(QueryGuardrail.Mode.FAIL);
+        //then
+        try (QueryGuardrail.Scope scope = guardrail.open("test")) {
+            QueryGuardrailException e = assertThrows(QueryGuardrailException.class, this::usernames);
+            assertThat(e.getReason()).isEqualTo(Reason.ROW_LIMIT);
+        }
+    }
+
+    @Test
+    void memoryBudgetIsSharedAcrossQueries(){
+        //given
+        properties.setMaxRows(10);
+        properties.setMemoryBudget(DataSize.ofBytes(properties.getEstimatedEntityBytes() * 7L));
+        //when
+        try (QueryGuardrail.Scope scope = guardrail.open("test")) {
+            List<Member> first = queryFactory.selectFrom(member).where(member.username.startsWith(PREFIX)).fetch();
+            List<Member> second = queryFactory.selectFrom(member).where(member.username.startsWith(PREFIX)).fetch();
+            //then
+            assertThat(first).hasSize(5);
+            assertThat(second).hasSize(2);
+            assertThat(scope.getRowLimit()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void singleRowAndCountQueriesAreNotClamped(){
+        //given
+        properties.setMemoryBudget(DataSize.ofBytes(0));
+        //when
+        try (QueryGuardrail.Scope scope = guardrail.open("test")) {
+            Integer exists = queryFactory.selectOne().from(member).where(member.username.startsWith(PREFIX)).fetchFirst();
+            Member one = queryFactory.selectFrom(member).where(member.username.eq(PREFIX + 1)).fetchOne();
+            long count = queryFactory.selectFrom(member).where(member.username.startsWith(PREFIX)).fetchCount();
+            List<String> list = usernames();
+            //then
+            assertThat(exists).isNotNull();
+            assertThat(one).isNotNull();
+            assertThat(count).isEqualTo(5);
+            assertThat(list).isEmpty();
+            assertThat(scope.isTruncated()).isTrue();
+        }
+    }
+
+    @Test
+    void exhaustedTimeBudgetStopsQueries(){
+        //given
+        properties.setTimeout(Duration.ZERO);
+        //then
+        try (QueryGuardrail.Scope scope = guardrail.open("test")) {
+            QueryGuardrailException e = assertThrows(QueryGuardrailException.class, this::usernames);
+            assertThat(e.getReason()).isEqualTo(Reason.TIMEOUT);
+        }
+    }
+
+    @Test
+    void circuitBreakerOpensOnSlowCallsAndClosesAfterTrials(){
+        //given
+        QueryGuardrailProperties.CircuitBreaker settings = new QueryGuardrailProperties.CircuitBreaker();
+        settings.setMinimumCalls(4);
+        settings.setTrialCalls(1);
+        AtomicLong now = new AtomicLong();
+        QueryCircuitBreaker breaker = new QueryCircuitBreaker(settings, now::get);
+        long slow = settings.getSlowCallThreshold().toNanos();
+        //when
+        breaker.record(0, false);
+        breaker.record(slow, false);
+        breaker.record(0, true);
+        assertThat(breaker.getState()).isEqualTo(QueryCircuitBreaker.State.CLOSED);
+        breaker.record(slow, false);
+        //then
+        assertThat(breaker.getState()).isEqualTo(QueryCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire().isGranted()).isFalse();
+        assertThat(breaker.retryAfterSeconds()).isEqualTo(30);
+
+        now.addAndGet(settings.getOpenDuration().toNanos());
+        QueryCircuitBreaker.Permit trial = breaker.tryAcquire();
+        assertThat(trial.isTrial()).isTrue();
+        assertThat(breaker.tryAcquire().isGranted()).isFalse();
+        breaker.record(TimeUnit.MILLISECONDS.toNanos(1), false);
+        assertThat(breaker.getState()).isEqualTo(QueryCircuitBreaker.State.HALF_OPEN);
+        breaker.completeTrial(trial, true);
+        assertThat(breaker.getState()).isEqualTo(QueryCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void unusedTrialIsReturnedWhenScopeCloses(){
+        //given
+        properties.getEndpoints().put("/v1/members", new QueryGuardrailProperties.Endpoint());
+        properties.getEndpoints().get("/v1/members").setShed(true);
+        properties.getCircuitBreaker().setTrialCalls(1);
+        properties.getCircuitBreaker().setOpenDuration(Duration.ZERO);
+        QueryCircuitBreaker breaker = new QueryCircuitBreaker(properties.getCircuitBreaker());
+        guardrail = new QueryGuardrail(properties, breaker);
+        queryFactory = new InspectingJPAQueryFactory(em, guardrail);
+        for (int i = 0; i < 10; i++) {
+            breaker.record(0, true);
+        }
+        //when
+        guardrail.open("/v1/members").close();
+        //then
+        try (QueryGuardrail.Scope scope = guardrail.open("/v1/members")) {
+            assertThat(usernames()).hasSize(3);
+        }
+        assertThat(breaker.getState()).isEqualTo(QueryCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void countQueriesAreRecorded(){
+        //given
+        properties.getCircuitBreaker().setSlowCallThreshold(Duration.ZERO);
+        properties.getCircuitBreaker().setMinimumCalls(2);
+        QueryCircuitBreaker breaker = new QueryCircuitBreaker(properties.getCircuitBreaker());
+        guardrail = new QueryGuardrail(properties, breaker);
+        queryFactory = new InspectingJPAQueryFactory(em, guardrail);
+        //when
+        try (QueryGuardrail.Scope scope = guardrail.open("test")) {
+            queryFactory.selectFrom(member).where(member.username.startsWith(PREFIX)).fetchCount();
+            queryFactory.selectFrom(member).where(member.username.eq(PREFIX + 1)).fetchOne();
+        }
+        //then
+        assertThat(breaker.getState()).isEqualTo(QueryCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void openCircuitShedsOnlyShedEndpoints(){
+        //given
+        properties.getEndpoints().put("/v1/members", new QueryGuardrailProperties.Endpoint());
+        properties.getEndpoints().get("/v1/members").setShed(true);
+        QueryCircuitBreaker breaker = guardrail.getCircuitBreaker();
+        for (int i = 0; i < 10; i++) {
+            breaker.record(0, true);
+        }
+        //then
+        QueryGuardrailException e = assertThrows(QueryGuardrailException.class, () -> guardrail.open("/v1/members"));
+        assertThat(e.getReason()).isEqualTo(Reason.CIRCUIT_OPEN);
+        try (QueryGuardrail.Scope scope = guardrail.open("/v2/members")) {
+            assertThat(usernames()).hasSize(3);
+        }
+    }
+
+    @Test
+    void truncatedResponseIsFlagged() throws Exception {
+        //given
+        QueryGuardrailProperties.Endpoint endpoint = new QueryGuardrailProperties.Endpoint();
+        endpoint.setMaxRows(2);
+        globalProperties.getEndpoints().put("/v1/members", endpoint);
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        //then
+        mockMvc.perform(get("/v1/members").param("username", PREFIX + 1))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(QueryGuardrailAdvice.TRUNCATED_HEADER));
+        mockMvc.perform(get("/v1/members").param("teamName", "guardrailTeam"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryGuardrailAdvice.TRUNCATED_HEADER, "true"))
+                .andExpect(header().string(QueryGuardrailAdvice.ROW_LIMIT_HEADER, "2"))
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void asyncHandlerClosesScopeWhenConcurrentHandlingStarts() throws Exception {
+        //given
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        //when
+        MvcResult result = mockMvc.perform(get("/members/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        //then
+        assertThat(QueryGuardrail.currentScope()).isNull();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+        assertThat(QueryGuardrail.currentScope()).isNull();
+    }
+
+    private List<String> usernames() {
+        return queryFactory.select(member.username)
+                .from(member)
+                .where(member.username.startsWith(PREFIX))
+                .orderBy(member.username.asc())
+                .fetch();
+    }
+}
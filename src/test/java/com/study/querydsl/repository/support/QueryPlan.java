@@ -0,0 +1,117 @@
+package com.study.querydsl.repository.support;
+
+import com.study.querydsl.repository.support.SqlCapture.CapturedStatement;
+import lombok.Getter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * H2 EXPLAIN 결과에서 어떤 테이블을 full scan 했고 어떤 인덱스를 탔는지 뽑아낸다.
+ */
+@Getter
+public class QueryPlan {
+
+    // 조건 없이 인덱스 순서로만 읽으면(index sorted) 인덱스 이름 뒤에 바로 */ 가 온다.
+    private static final Pattern ACCESS = Pattern.compile("/\\* PUBLIC\\.([A-Z0-9_]+)(\\.tableScan|:| \\*/)");
+    private static final Pattern CROSS_JOIN = Pattern.compile("\\bcross\\s+join\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SCAN_COUNT = Pattern.compile("/\\* scanCount: (\\d+) \\*/");
+    private static final Pattern SCAN_FILTER = Pattern.compile(
+            "/\\* PUBLIC\\.([A-Z0-9_]+)\\.tableScan \\*/\\s*/\\* WHERE (.*?)\\s*\\*/", Pattern.DOTALL);
+
+    private final String sql;
+    private final String plan;
+    private final List<String> accessPaths = new ArrayList<>();
+    private final Set<String> tableScans = new LinkedHashSet<>();
+    private final Set<String> usedIndexes = new LinkedHashSet<>();
+    private final Map<String, String> scanFilters = new LinkedHashMap<>();
+
+    QueryPlan(String sql, String plan) {
+        this.sql = sql;
+        this.plan = plan;
+        Matcher matcher = ACCESS.matcher(plan);
+        while (matcher.find()) {
+            if (matcher.group(2).equals(".tableScan")) {
+                tableScans.add(matcher.group(1));
+                accessPaths.add(matcher.group(1) + ".tableScan");
+            } else {
+                usedIndexes.add(matcher.group(1));
+                accessPaths.add(normalizeIndexName(matcher.group(1)));
+            }
+        }
+        Matcher filter = SCAN_FILTER.matcher(plan);
+        while (filter.find()) {
+            scanFilters.put(filter.group(1), filter.group(2).replaceAll("\\s+", " "));
+        }
+    }
+
+    public static QueryPlan explain(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql);
+             ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return new QueryPlan(sql, rs.getString(1));
+        }
+    }
+
+    // 캡처한 파라미터로 실제 실행해서 scanCount 까지 포함된 계획을 얻는다.
+    public static QueryPlan analyze(Connection connection, CapturedStatement captured) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN ANALYZE " + captured.getSql())) {
+            List<Object> parameters = captured.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return new QueryPlan(captured.getSql(), rs.getString(1));
+            }
+        }
+    }
+
+    // 생성된 이름(FK..._INDEX_8, PRIMARY_KEY_2)은 스키마를 만들 때마다 달라질 수 있어서 정규화한다.
+    private static String normalizeIndexName(String index) {
+        if (index.startsWith("PRIMARY_KEY")) {
+            return "PRIMARY_KEY";
+        }
+        if (index.startsWith("FK") && index.contains("_INDEX")) {
+            return "FK_INDEX";
+        }
+        return index;
+    }
+
+    // 테이블을 읽은 행 수의 합. EXPLAIN ANALYZE 로 만든 계획에서만 의미가 있다.
+    public long getCost() {
+        long cost = 0;
+        Matcher matcher = SCAN_COUNT.matcher(plan);
+        while (matcher.find()) {
+            cost += Long.parseLong(matcher.group(1));
+        }
+        return cost;
+    }
+
+    public boolean hasCrossJoin() {
+        return CROSS_JOIN.matcher(sql).find();
+    }
+
+    public boolean isFullScan(String table) {
+        return tableScans.contains(table.toUpperCase());
+    }
+
+    public boolean uses(String index) {
+        return usedIndexes.contains(index.toUpperCase());
+    }
+
+    @Override
+    public String toString() {
+        return plan;
+    }
+}
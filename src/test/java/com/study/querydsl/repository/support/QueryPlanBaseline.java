@@ -0,0 +1,114 @@
+package com.study.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 레포지토리 메서드별 실행 계획 기준선. src/test/resources/query-plans/{이름}.plan 에 저장한다.
+ * -Dquery-plan.update=true 일 때만 현재 계획으로 새로 기록한다.
+ */
+public class QueryPlanBaseline {
+
+    public static final Path DIRECTORY = Paths.get("src", "test", "resources", "query-plans");
+
+    // 기준선 대비 이만큼 넘게 늘어나야 비용 증가로 본다.
+    private static final double COST_GROWTH_RATIO = Double.parseDouble(System.getProperty("query-plan.cost-ratio", "1.5"));
+
+    private final String name;
+    private final List<Entry> entries;
+
+    private QueryPlanBaseline(String name, List<Entry> entries) {
+        this.name = name;
+        this.entries = entries;
+    }
+
+    public static QueryPlanBaseline of(String name, List<QueryPlan> plans) {
+        List<Entry> entries = new ArrayList<>();
+        for (QueryPlan plan : plans) {
+            entries.add(new Entry(String.join(" > ", plan.getAccessPaths()), plan.hasCrossJoin(), plan.getCost()));
+        }
+        return new QueryPlanBaseline(name, entries);
+    }
+
+    public static QueryPlanBaseline load(String name) {
+        Path file = DIRECTORY.resolve(name + ".plan");
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            List<Entry> entries = new ArrayList<>();
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t");
+                entries.add(new Entry(columns[0], Boolean.parseBoolean(columns[1]), Long.parseLong(columns[2])));
+            }
+            return new QueryPlanBaseline(name, entries);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void store() {
+        StringBuilder content = new StringBuilder("# access paths\tcross join\tcost (rows scanned)\n");
+        for (Entry entry : entries) {
+            content.append(entry.getAccessPaths()).append('\t')
+                    .append(entry.isCrossJoin()).append('\t')
+                    .append(entry.getCost()).append('\n');
+        }
+        try {
+            Files.createDirectories(DIRECTORY);
+            Files.write(DIRECTORY.resolve(name + ".plan"), content.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 기준선과 비교해서 퇴행한 항목을 돌려준다. 비어 있으면 통과.
+    public List<String> regressionsOf(QueryPlanBaseline current) {
+        List<String> regressions = new ArrayList<>();
+        if (entries.size() != current.entries.size()) {
+            regressions.add(name + ": statement count " + entries.size() + " -> " + current.entries.size());
+            return regressions;
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            Entry before = entries.get(i);
+            Entry after = current.entries.get(i);
+            String prefix = name + "[" + i + "]: ";
+            for (String accessPath : after.getAccessPaths().split(" > ")) {
+                if (accessPath.endsWith(".tableScan") && !before.getAccessPaths().contains(accessPath)) {
+                    regressions.add(prefix + "new full scan " + accessPath + " (was " + before.getAccessPaths() + ")");
+                }
+            }
+            if (after.isCrossJoin() && !before.isCrossJoin()) {
+                regressions.add(prefix + "new cross join");
+            }
+            if (after.getCost() > before.getCost() * COST_GROWTH_RATIO) {
+                regressions.add(prefix + "cost " + before.getCost() + " -> " + after.getCost());
+            }
+        }
+        return regressions;
+    }
+
+    public boolean hasCrossJoin() {
+        return entries.stream().anyMatch(Entry::isCrossJoin);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    static class Entry {
+        private final String accessPaths;
+        private final boolean crossJoin;
+        private final long cost;
+    }
+}
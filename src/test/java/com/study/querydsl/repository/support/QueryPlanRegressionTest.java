@@ -0,0 +1,95 @@
+package com.study.querydsl.repository.support;
+
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.Team;
+import com.study.querydsl.repository.MemberJpaRepository;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.WoowahwanMemberRepository;
+import com.study.querydsl.repository.support.SqlCapture.CapturedStatement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 다른 테스트가 커밋한 행에 계획과 비용이 흔들리지 않도록 이 테스트만 쓰는 메모리 H2 에 같은 데이터를 넣고 비교한다.
+ * 기준선이 없는 쿼리는 실패한다. 쿼리를 추가하거나 바꿨으면 -Dquery-plan.update=true 로 다시 기록한다.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:query-plans;DB_CLOSE_DELAY=-1")
+@Transactional
+@Import(SqlCaptureConfiguration.class)
+class QueryPlanRegressionTest {
+
+    // 일부러 cross join 을 보여주는 예제지만 ImplicitJoinInspector 가 inner join 으로 바꾼다.
+    private static final String REWRITTEN_CROSS_JOIN = "WoowahwanMemberRepository.crossJoin";
+    private static final boolean UPDATE_BASELINE = Boolean.getBoolean("query-plan.update");
+
+    @Autowired EntityManager em;
+    @Autowired DataSource dataSource;
+    @Autowired SqlCapture sqlCapture;
+
+    @Autowired MemberJpaRepository memberJpaRepository;
+    @Autowired MemberRepository memberRepository;
+    @Autowired WoowahwanMemberRepository woowahwanMemberRepository;
+
+    Team teamA;
+
+    @BeforeEach
+    void setUp(){
+        teamA = new Team("TeamA");
+        Team teamB = new Team("TeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 200; i++) {
+            em.persist(new Member("member" + i, i % 50, i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void queryPlansDoNotRegress() throws Exception {
+        //given
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        Map<String, Runnable> queries = RepositoryQueries.of(
+                memberJpaRepository, memberRepository, woowahwanMemberRepository, teamA.getId());
+        List<String> regressions = new ArrayList<>();
+
+        //when
+        for (Map.Entry<String, Runnable> query : queries.entrySet()) {
+            List<QueryPlan> plans = new ArrayList<>();
+            for (CapturedStatement statement : sqlCapture.capture(query.getValue())) {
+                if (statement.isSelect()) {
+                    plans.add(QueryPlan.analyze(connection, statement));
+                }
+            }
+            QueryPlanBaseline current = QueryPlanBaseline.of(query.getKey(), plans);
+            QueryPlanBaseline baseline = QueryPlanBaseline.load(query.getKey());
+            if (UPDATE_BASELINE) {
+                current.store();
+                continue;
+            }
+            if (baseline == null) {
+                regressions.add(query.getKey() + ": no baseline, record one with -Dquery-plan.update=true");
+                continue;
+            }
+            regressions.addAll(baseline.regressionsOf(current));
+        }
+
+        //then
+        assertThat(regressions).isEmpty();
+        assertThat(QueryPlanBaseline.load(REWRITTEN_CROSS_JOIN).hasCrossJoin()).isFalse();
+    }
+}
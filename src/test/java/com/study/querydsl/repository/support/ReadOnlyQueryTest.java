@@ -0,0 +1,80 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.Team;
+import com.study.querydsl.repository.MemberQuerydslSupportRepository;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static com.study.querydsl.domain.QMember.member;
+import static com.study.querydsl.repository.support.ReadOnlyQuery.readOnly;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class ReadOnlyQueryTest {
+
+    private static final String PREFIX = "ReadOnlyMember";
+
+    @Autowired EntityManager em;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired MemberQuerydslSupportRepository memberQuerydslSupportRepository;
+
+    @BeforeEach
+    void setUp(){
+        Team team = new Team("ReadOnlyTeam");
+        em.persist(team);
+        em.persist(new Member(PREFIX + "1", 10, team));
+        em.persist(new Member(PREFIX + "2", 20, team));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void readOnlyEntitiesAreNotDirtyChecked(){
+        //given
+        List<Member> members = readOnly(queryFactory.selectFrom(member).where(member.username.startsWith(PREFIX))).fetch();
+        Session session = em.unwrap(Session.class);
+        assertThat(members).hasSize(2).allMatch(session::isReadOnly);
+        //when
+        members.forEach(m -> m.setUsername(m.getUsername() + "+"));
+        em.flush();
+        em.clear();
+        //then
+        assertThat(queryFactory.select(member.username).from(member).where(member.username.startsWith(PREFIX)).fetch())
+                .containsOnly(PREFIX + "1", PREFIX + "2");
+    }
+
+    @Test
+    void readOnlyQueryDoesNotAutoFlush(){
+        //given
+        Team team = new Team("ReadOnlyTeamPending");
+        em.persist(team);
+        em.persist(new Member(PREFIX + "Pending", 30, team));
+        //when
+        List<String> readOnlyNames = readOnly(queryFactory.select(member.username).from(member)
+                .where(member.username.startsWith(PREFIX))).fetch();
+        List<String> names = queryFactory.select(member.username).from(member)
+                .where(member.username.startsWith(PREFIX)).fetch();
+        //then
+        assertThat(readOnlyNames).doesNotContain(PREFIX + "Pending");
+        assertThat(names).contains(PREFIX + "Pending");
+    }
+
+    @Test
+    void supportRepositoryReadsReadOnly(){
+        //when
+        List<Member> members = memberQuerydslSupportRepository.basicSelectFrom();
+        //then
+        Session session = em.unwrap(Session.class);
+        assertThat(members).isNotEmpty().allMatch(session::isReadOnly);
+    }
+}
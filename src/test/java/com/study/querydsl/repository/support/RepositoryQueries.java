@@ -0,0 +1,47 @@
+package com.study.querydsl.repository.support;
+
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.repository.MemberJpaRepository;
+import com.study.querydsl.repository.MemberRepository;
+import com.study.querydsl.repository.WoowahwanMemberRepository;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 실행 계획을 확인할 레포지토리 Querydsl 쿼리 목록. (IndexAdvisorTest, QueryPlanRegressionTest 공용)
+ */
+public class RepositoryQueries {
+
+    public static Map<String, Runnable> of(MemberJpaRepository memberJpaRepository,
+                                           MemberRepository memberRepository,
+                                           WoowahwanMemberRepository woowahwanMemberRepository,
+                                           Long teamId) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("TeamB");
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(20);
+        PageRequest pageRequest = PageRequest.of(0, 3);
+
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("MemberJpaRepository.findAll_Querydsl", memberJpaRepository::findAll_Querydsl);
+        queries.put("MemberJpaRepository.findByUsername_Querydsl", () -> memberJpaRepository.findByUsername_Querydsl("member1"));
+        queries.put("MemberJpaRepository.searchByBuilder", () -> memberJpaRepository.searchByBuilder(condition));
+        queries.put("MemberJpaRepository.searchByWhere", () -> memberJpaRepository.searchByWhere(condition));
+        queries.put("MemberRepositoryImpl.search", () -> memberRepository.search(condition));
+        queries.put("MemberRepositoryImpl.searchPageSimple", () -> memberRepository.searchPageSimple(condition, pageRequest));
+        queries.put("MemberRepositoryImpl.searchPageComplex", () -> memberRepository.searchPageComplex(condition, pageRequest));
+        queries.put("WoowahwanMemberRepository.getMembers", woowahwanMemberRepository::getMembers);
+        queries.put("WoowahwanMemberRepository.noOffset", () -> woowahwanMemberRepository.noOffset(10L, 5));
+        queries.put("WoowahwanMemberRepository.useCoveringIndex", () -> woowahwanMemberRepository.useCoveringIndex(0, 5));
+        queries.put("WoowahwanMemberRepository.useOrderByNull", woowahwanMemberRepository::useOrderByNull);
+        queries.put("WoowahwanMemberRepository.findSameTeamMember", () -> woowahwanMemberRepository.findSameTeamMember(teamId));
+        queries.put("WoowahwanMemberRepository.entityInSelect", () -> woowahwanMemberRepository.entityInSelect(teamId));
+        queries.put("WoowahwanMemberRepository.crossJoinToInnerJoin", woowahwanMemberRepository::crossJoinToInnerJoin);
+        queries.put("WoowahwanMemberRepository.crossJoin", woowahwanMemberRepository::crossJoin);
+        queries.put("WoowahwanMemberRepository.exist", () -> woowahwanMemberRepository.exist(1L));
+        queries.put("WoowahwanMemberRepository.search", () -> woowahwanMemberRepository.search(condition, pageRequest));
+        return queries;
+    }
+}
@@ -0,0 +1,91 @@
+package com.study.querydsl.repository.support;
+
+import com.study.querydsl.config.SlowQueryProperties;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowQueryLogTest {
+
+    SlowQueryProperties properties;
+    List<SlowQuery> logged;
+    DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new SlowQueryProperties();
+        properties.setThreshold(Duration.ZERO);
+        properties.setCallSiteExcludes(new ArrayList<>());
+        logged = new ArrayList<>();
+
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:slow_query;DB_CLOSE_DELAY=-1");
+        try (Connection connection = h2.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists member(member_id bigint, username varchar(255))");
+            statement.execute("delete from member");
+            statement.execute("insert into member values (1, 'member1'), (2, 'member2'), (3, 'other')");
+        }
+        dataSource = SlowQueryDataSource.wrap(h2, new SlowQueryLog(properties, logged::add));
+    }
+
+    @Test
+    void logQueryOverThreshold() throws Exception {
+        //when
+        List<String> usernames = selectUsernamesLike("member%");
+        //then
+        assertThat(usernames).hasSize(2);
+        assertThat(logged).hasSize(1);
+        SlowQuery slowQuery = logged.get(0);
+        assertThat(slowQuery.getJpql()).isEqualTo("select m.username from Member m where m.username like ?1");
+        assertThat(slowQuery.getSql()).startsWith("select username from member");
+        assertThat(slowQuery.getParameters()).containsExactly("member%");
+        assertThat(slowQuery.getRows()).isEqualTo(2);
+        assertThat(slowQuery.getCallSite()).contains("SlowQueryLogTest.selectUsernamesLike");
+    }
+
+    @Test
+    void skipQueryUnderThreshold() throws Exception {
+        //given
+        properties.setThreshold(Duration.ofMinutes(1));
+        //when
+        selectUsernamesLike("member%");
+        //then
+        assertThat(logged).isEmpty();
+    }
+
+    @Test
+    void skipUnsampledQuery() throws Exception {
+        //given
+        properties.setSampleRate(0.0);
+        //when
+        selectUsernamesLike("member%");
+        //then
+        assertThat(logged).isEmpty();
+    }
+
+    private List<String> selectUsernamesLike(String pattern) throws Exception {
+        List<String> usernames = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "/* select m.username from Member m where m.username like ?1 */ select username from member where username like ?")) {
+            statement.setString(1, pattern);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    usernames.add(rs.getString(1));
+                }
+            }
+        }
+        return usernames;
+    }
+}
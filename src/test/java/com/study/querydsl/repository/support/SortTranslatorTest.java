@@ -0,0 +1,48 @@
+package com.study.querydsl.repository.support;
+
+import com.querydsl.core.types.OrderSpecifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static com.study.querydsl.domain.QMember.member;
+import static com.study.querydsl.domain.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SortTranslatorTest {
+
+    SortTranslator translator = SortTranslator.tiebreaker("id", member.id)
+            .allow("username", member.username)
+            .allow("team.name", team.name);
+
+    @Test
+    void translateAllowedSortWithIdTiebreaker(){
+        //when
+        OrderSpecifier<?>[] orders = translator.translate(Sort.by(Sort.Order.desc("team.name"), Sort.Order.asc("username")));
+        //then
+        assertThat(orders).containsExactly(team.name.desc(), member.username.asc(), member.id.asc());
+    }
+
+    @Test
+    void unsortedOrdersById(){
+        //when
+        OrderSpecifier<?>[] orders = translator.translate(Sort.unsorted());
+        //then
+        assertThat(orders).containsExactly(member.id.asc());
+    }
+
+    @Test
+    void explicitIdSortIsNotDuplicated(){
+        //when
+        OrderSpecifier<?>[] orders = translator.translate(Sort.by(Sort.Direction.DESC, "id"));
+        //then
+        assertThat(orders).containsExactly(member.id.desc());
+    }
+
+    @Test
+    void rejectNotWhitelistedSort(){
+        //then
+        assertThrows(UnsupportedSortException.class, () -> translator.translate(Sort.by("age")));
+        assertThrows(UnsupportedSortException.class, () -> translator.translate(Sort.by(Sort.Order.asc("username").ignoreCase())));
+    }
+}
@@ -0,0 +1,59 @@
+package com.study.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * SlowQueryDataSource 의 프록시로 실행된 SQL 과 바인딩 파라미터를 기록한다. (테스트 전용)
+ */
+public class SqlCapture {
+
+    private final List<CapturedStatement> statements = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean capturing;
+
+    public <T> List<CapturedStatement> capture(Supplier<T> action) {
+        statements.clear();
+        capturing = true;
+        try {
+            action.get();
+        } finally {
+            capturing = false;
+        }
+        synchronized (statements) {
+            return new ArrayList<>(statements);
+        }
+    }
+
+    public List<CapturedStatement> capture(Runnable action) {
+        return capture(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public DataSource wrap(DataSource dataSource) {
+        return SlowQueryDataSource.wrap(dataSource, (sql, parameters, rows, elapsedNanos) -> {
+            if (capturing) {
+                statements.add(new CapturedStatement(sql, parameters));
+            }
+        });
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class CapturedStatement {
+        private final String sql;
+        private final List<Object> parameters;
+
+        public boolean isSelect() {
+            // hibernate.use_sql_comments 로 붙는 JPQL 주석은 건너뛴다.
+            return sql.replaceFirst("(?s)^\\s*/\\*.*?\\*/", "").trim().toLowerCase().startsWith("select");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.study.querydsl.repository.support;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+
+@TestConfiguration
+public class SqlCaptureConfiguration {
+
+    @Bean
+    public static SqlCapture sqlCapture() {
+        return new SqlCapture();
+    }
+
+    @Bean
+    public static BeanPostProcessor sqlCaptureDataSourcePostProcessor(SqlCapture sqlCapture) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                return bean instanceof DataSource ? sqlCapture.wrap((DataSource) bean) : bean;
+            }
+        };
+    }
+}
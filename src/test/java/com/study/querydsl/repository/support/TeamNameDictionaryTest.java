@@ -0,0 +1,124 @@
+package com.study.querydsl.repository.support;
+
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.Team;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.repository.MemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 팀 변경은 커밋된 뒤에 사전에 반영되므로 테스트 데이터는 커밋해 두고 끝나면 지운다.
+ * jdbc 로 지운 팀은 사전에 남으므로 테스트마다 다른 이름을 쓴다.
+ */
+@SpringBootTest
+@Import(SqlCaptureConfiguration.class)
+class TeamNameDictionaryTest {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired TeamNameDictionary teamNameDictionary;
+    @Autowired MemberRepository memberRepository;
+    @Autowired SqlCapture sqlCapture;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManager em;
+
+    List<Long> teamIds = new ArrayList<>();
+    String prefix;
+    Long teamId;
+
+    @BeforeEach
+    void setUp(){
+        prefix = "dictionaryTeam" + System.currentTimeMillis() + "_" + SEQUENCE.incrementAndGet();
+        teamId = transactionTemplate.execute(status -> {
+            Team team = new Team(prefix + "A");
+            em.persist(team);
+            em.persist(new Member(prefix + "Member1", 10, team));
+            em.persist(new Member(prefix + "Member2", 20, team));
+            return team.getId();
+        });
+        teamIds.add(teamId);
+    }
+
+    @AfterEach
+    void tearDown(){
+        transactionTemplate.executeWithoutResult(status -> teamIds.forEach(id -> {
+            jdbcTemplate.update("delete from member_username_gram where member_id in (select member_id from member where team_id = ?)", id);
+            jdbcTemplate.update("delete from member where team_id = ?", id);
+            jdbcTemplate.update("delete from team where team_id = ?", id);
+        }));
+    }
+
+    @Test
+    void teamNameFilterRunsWithoutJoin(){
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(prefix + "A");
+        condition.setTeamIdOnly(true);
+        //when
+        List<SqlCapture.CapturedStatement> statements = sqlCapture.capture(() -> memberRepository.search(condition));
+        List<MemberTeamDto> result = memberRepository.search(condition);
+        //then
+        assertThat(teamNameDictionary.idsOf(prefix + "A")).containsExactly(teamId);
+        assertThat(result).extracting(MemberTeamDto::getUsername).containsExactlyInAnyOrder(prefix + "Member1", prefix + "Member2");
+        assertThat(statements).filteredOn(SqlCapture.CapturedStatement::isSelect).hasSize(1)
+                .allMatch(statement -> !statement.getSql().contains("join"));
+    }
+
+    @Test
+    void unknownTeamNameMatchesNothing(){
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(prefix + "Unknown");
+        //when
+        List<MemberTeamDto> result = memberRepository.search(condition);
+        //then
+        assertThat(teamNameDictionary.idsOf(prefix + "Unknown")).isEmpty();
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    void renameIsAppliedAfterCommit(){
+        //when
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, teamId).setName(prefix + "B"));
+        //then
+        assertThat(teamNameDictionary.idsOf(prefix + "A")).isEmpty();
+        assertThat(teamNameDictionary.idsOf(prefix + "B")).containsExactly(teamId);
+    }
+
+    @Test
+    void uncommittedTeamFallsBackToJoin(){
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(prefix + "C");
+        //when
+        List<MemberTeamDto> result = transactionTemplate.execute(status -> {
+            Team team = new Team(prefix + "C");
+            em.persist(team);
+            em.persist(new Member(prefix + "Member3", 30, team));
+            em.flush();
+            assertThat(teamNameDictionary.idsOf(prefix + "C")).isNull();
+            List<MemberTeamDto> found = memberRepository.search(condition);
+            status.setRollbackOnly();
+            return found;
+        });
+        //then
+        assertThat(result).extracting(MemberTeamDto::getUsername).containsExactly(prefix + "Member3");
+        assertThat(teamNameDictionary.idsOf(prefix + "C")).isEmpty();
+    }
+}
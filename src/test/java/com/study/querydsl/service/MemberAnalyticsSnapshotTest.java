@@ -0,0 +1,130 @@
+package com.study.querydsl.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.querydsl.config.MemberAnalyticsProperties;
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.Team;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.repository.MemberScanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static com.study.querydsl.domain.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class MemberAnalyticsSnapshotTest {
+
+    private static final String PREFIX = "AnalyticsMember";
+
+    @Autowired EntityManager em;
+    @Autowired JPAQueryFactory queryFactory;
+    @Autowired MemberScanRepository memberScanRepository;
+
+    MemberAnalyticsSnapshot snapshot;
+    Team team;
+    Member member10;
+    Member member20;
+
+    @BeforeEach
+    void setUp(){
+        team = new Team("AnalyticsTeam");
+        em.persist(team);
+        member10 = new Member(PREFIX + "10", 10, team);
+        member20 = new Member(PREFIX + "20", 20, team);
+        em.persist(member10);
+        em.persist(member20);
+        em.persist(new Member(PREFIX + "30", 30, team));
+        em.persist(new Member(PREFIX + "40", 40, team));
+        em.flush();
+        em.clear();
+
+        MemberAnalyticsProperties properties = new MemberAnalyticsProperties();
+        properties.setRebuildInterval(Duration.ofHours(1));
+        snapshot = new MemberAnalyticsSnapshot(memberScanRepository, properties);
+        snapshot.rebuild();
+    }
+
+    @AfterEach
+    void tearDown(){
+        snapshot.close();
+    }
+
+    @Test
+    void countMatchesDatabase(){
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamId(team.getId());
+        condition.setAgeGoe(15);
+        condition.setAgeLoe(35);
+        MemberSearchCondition byUsername = new MemberSearchCondition();
+        byUsername.setUsername(PREFIX + "40");
+        MemberSearchCondition all = new MemberSearchCondition();
+        //when
+        long count = snapshot.count(condition);
+        //then
+        assertThat(count).isEqualTo(2);
+        assertThat(snapshot.count(byUsername)).isEqualTo(1);
+        assertThat(snapshot.count(all)).isEqualTo(queryFactory.selectFrom(member).fetchCount());
+        assertThat(snapshot.size()).isEqualTo(snapshot.count(all));
+    }
+
+    @Test
+    void histogramAndPercentiles(){
+        //given
+        List<Integer> ages = queryFactory.select(member.age).from(member).fetch();
+        SortedMap<Integer, Long> expected = new TreeMap<>();
+        ages.forEach(age -> expected.merge(Math.floorDiv(age, 20) * 20, 1L, Long::sum));
+        //when
+        SortedMap<Integer, Long> histogram = snapshot.ageHistogram(20);
+        Map<Long, Integer> median = snapshot.agePercentileByTeam(50);
+        Map<Long, Integer> max = snapshot.agePercentileByTeam(100);
+        //then
+        assertThat(histogram).isEqualTo(expected);
+        assertThat(median).containsEntry(team.getId(), 20);
+        assertThat(max).containsEntry(team.getId(), 40);
+    }
+
+    @Test
+    void refreshAppliesChangedMembersOnly(){
+        //given
+        Member added = new Member(PREFIX + "50", 50, team);
+        em.persist(added);
+        em.flush();
+        queryFactory.update(member).set(member.age, 60).where(member.id.eq(member10.getId())).execute();
+        queryFactory.delete(member).where(member.id.eq(member20.getId())).execute();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamId(team.getId());
+        //when
+        snapshot.refresh(new HashSet<>(Arrays.asList(added.getId(), member10.getId(), member20.getId())));
+        //then
+        assertThat(snapshot.count(condition)).isEqualTo(4);
+        assertThat(snapshot.agePercentileByTeam(100)).containsEntry(team.getId(), 60);
+        condition.setAgeLoe(20);
+        assertThat(snapshot.count(condition)).isZero();
+    }
+
+    @Test
+    void teamNameIsNotSupported(){
+        //given
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("AnalyticsTeam");
+        //when //then
+        assertThatThrownBy(() -> snapshot.count(condition)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,47 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.dto.MemberTeamDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberColumnsTest {
+
+    @Test
+    void mergeReplacesChangedRowsAndDropsStaleUsernames(){
+        //given
+        MemberColumns.Builder builder = MemberColumns.builder();
+        builder.add(new MemberTeamDto(1L, "member1", 10, 100L, null));
+        builder.add(new MemberTeamDto(3L, "member3", 30, null, null));
+        MemberColumns columns = builder.build();
+        //when
+        MemberColumns merged = columns.merge(new HashSet<>(Arrays.asList(1L, 3L)), Arrays.asList(
+                new MemberTeamDto(1L, "renamed1", 11, 100L, null),
+                new MemberTeamDto(2L, "member2", 20, 100L, null)));
+        //then
+        assertThat(merged.size()).isEqualTo(2);
+        assertThat(merged.id(0)).isEqualTo(1L);
+        assertThat(merged.username(0)).isEqualTo("renamed1");
+        assertThat(merged.age(0)).isEqualTo(11);
+        assertThat(merged.id(1)).isEqualTo(2L);
+        assertThat(merged.username(1)).isEqualTo("member2");
+        // 더 쓰이지 않는 username 은 사전에서 빠진다.
+        assertThat(merged.codeOf("member1")).isEqualTo(MemberColumns.NO_USERNAME - 1);
+        assertThat(merged.codeOf("member3")).isEqualTo(MemberColumns.NO_USERNAME - 1);
+    }
+
+    @Test
+    void mergeIntoEmptyColumns(){
+        //when
+        MemberColumns merged = MemberColumns.builder().build()
+                .merge(Collections.singleton(1L), Collections.emptyList())
+                .merge(Collections.emptySet(), Collections.singletonList(new MemberTeamDto(1L, "member1", 10, null, null)));
+        //then
+        assertThat(merged.size()).isEqualTo(1);
+        assertThat(merged.teamId(0)).isEqualTo(MemberColumns.NO_TEAM);
+    }
+}
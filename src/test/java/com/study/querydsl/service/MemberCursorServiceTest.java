@@ -0,0 +1,223 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.config.MemberCursorPrefetchProperties;
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.MemberChangedEvent;
+import com.study.querydsl.domain.Team;
+import com.study.querydsl.dto.MemberCursorPage;
+import com.study.querydsl.dto.MemberSearchCondition;
+import com.study.querydsl.dto.MemberTeamDto;
+import com.study.querydsl.repository.MemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 다음 페이지는 다른 스레드에서 읽으므로 테스트 데이터는 커밋해 두고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberCursorServiceTest {
+
+    @Autowired MemberCursorService memberCursorService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManager em;
+
+    Long teamId;
+    List<Long> memberIds = new ArrayList<>();
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    @BeforeEach
+    void setUp(){
+        teamId = transactionTemplate.execute(status -> {
+            Team team = new Team("cursorTeam");
+            em.persist(team);
+            for (int i = 0; i < 5; i++) {
+                Member member = new Member("cursorMember" + i, 10 + i, team);
+                em.persist(member);
+                memberIds.add(member.getId());
+            }
+            return team.getId();
+        });
+        condition.setTeamId(teamId);
+        condition.setTeamIdOnly(true);
+    }
+
+    @AfterEach
+    void tearDown(){
+        memberCursorService.onMemberChanged(new MemberChangedEvent(Collections.emptySet()));
+        transactionTemplate.executeWithoutResult(status -> {
+            memberIds.forEach(id -> {
+                jdbcTemplate.update("delete from member_username_gram where member_id = ?", id);
+                jdbcTemplate.update("delete from member where member_id = ?", id);
+            });
+            jdbcTemplate.update("delete from team where team_id = ?", teamId);
+        });
+    }
+
+    @Test
+    void prefetchedPagesMatchDirectPages() throws InterruptedException {
+        //given
+        long hitsBefore = memberCursorService.getPrefetchHits();
+        //when
+        List<Long> prefetched = walk(true);
+        List<Long> direct = walk(false);
+        //then
+        List<Long> expected = new ArrayList<>(memberIds);
+        Collections.reverse(expected);
+        assertThat(prefetched).isEqualTo(expected);
+        assertThat(direct).isEqualTo(expected);
+        // 2 + 2 + 1 건 중 두 번째, 세 번째 페이지를 미리 읽은 것에서 가져간다.
+        assertThat(memberCursorService.getPrefetchHits() - hitsBefore).isEqualTo(2);
+        assertThat(memberCursorService.pendingPrefetches()).isZero();
+    }
+
+    @Test
+    void unusedPrefetchExpires() throws InterruptedException {
+        //given
+        MemberCursorPrefetchProperties properties = new MemberCursorPrefetchProperties();
+        properties.setWindow(Duration.ofMillis(100));
+        MemberCursorService service = new MemberCursorService(memberRepository, properties);
+        try {
+            //when
+            service.page(condition, null, 2, true);
+            assertThat(service.pendingPrefetches()).isEqualTo(1);
+            Thread.sleep(500);
+            //then
+            assertThat(service.pendingPrefetches()).isZero();
+            assertThat(service.page(condition, null, 2, true).getContent()).hasSize(2);
+            assertThat(service.getPrefetchHits()).isZero();
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void prefetchesAreBoundedAndClearedOnMemberChange(){
+        //given
+        MemberCursorPrefetchProperties properties = new MemberCursorPrefetchProperties();
+        properties.setMaxEntries(2);
+        MemberCursorService service = new MemberCursorService(memberRepository, properties);
+        try {
+            //when
+            for (int size = 1; size <= 3; size++) {
+                service.page(condition, null, size, true);
+            }
+            //then
+            assertThat(service.pendingPrefetches()).isEqualTo(2);
+            service.onMemberChanged(new MemberChangedEvent(Collections.emptySet()));
+            assertThat(service.pendingPrefetches()).isZero();
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void slowPrefetchIsNotAwaited() throws InterruptedException {
+        //given
+        MemberRepository repository = mock(MemberRepository.class);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.searchByCursor(any(), isNull(), anyInt())).thenReturn(page(10L));
+        when(repository.searchByCursor(any(), eq(10L), anyInt())).thenAnswer(invocation -> {
+            if (started.getCount() > 0) {
+                started.countDown();
+                release.await();
+            }
+            return page(null);
+        });
+        MemberCursorPrefetchProperties properties = new MemberCursorPrefetchProperties();
+        properties.setWaitTimeout(Duration.ofMillis(50));
+        MemberCursorService service = new MemberCursorService(repository, properties);
+        try {
+            service.page(condition, null, 2, true);
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            //when
+            MemberCursorPage next = service.page(condition, 10L, 2, false);
+            //then
+            assertThat(next.getNextCursor()).isNull();
+            assertThat(service.getPrefetchHits()).isZero();
+        } finally {
+            release.countDown();
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void queuedPrefetchIsCancelledAndLoadedInline() throws InterruptedException {
+        //given
+        MemberRepository repository = mock(MemberRepository.class);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.searchByCursor(any(), isNull(), anyInt())).thenReturn(page(10L));
+        when(repository.searchByCursor(any(), eq(10L), eq(1))).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return page(null);
+        });
+        when(repository.searchByCursor(any(), eq(10L), eq(2))).thenReturn(page(null));
+        MemberCursorPrefetchProperties properties = new MemberCursorPrefetchProperties();
+        properties.setThreads(1);
+        MemberCursorService service = new MemberCursorService(repository, properties);
+        try {
+            // 하나뿐인 스레드를 size 1 의 다음 페이지가 붙잡고, size 2 의 다음 페이지는 큐에서 기다린다.
+            service.page(condition, null, 1, true);
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            service.page(condition, null, 2, true);
+            //when
+            MemberCursorPage next = service.page(condition, 10L, 2, false);
+            //then
+            assertThat(next.getNextCursor()).isNull();
+            assertThat(service.getPrefetchHits()).isZero();
+        } finally {
+            release.countDown();
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void cursorPageSizeMustBePositive(){
+        assertThatThrownBy(() -> memberRepository.searchByCursor(condition, null, 0))
+                .hasMessageContaining("size must be positive");
+    }
+
+    private static MemberCursorPage page(Long nextCursor) {
+        return new MemberCursorPage(Collections.emptyList(), nextCursor);
+    }
+
+    private List<Long> walk(boolean prefetch) throws InterruptedException {
+        List<Long> ids = new ArrayList<>();
+        Long cursor = null;
+        do {
+            // 큐에서 기다리는 다음 페이지는 가져가는 쪽이 취소하므로, 다 읽힌 뒤에 넘긴다.
+            memberCursorService.awaitPrefetches();
+            MemberCursorPage page = memberCursorService.page(condition, cursor, 2, prefetch);
+            ids.addAll(page.getContent().stream().map(MemberTeamDto::getMemberId).collect(Collectors.toList()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+}
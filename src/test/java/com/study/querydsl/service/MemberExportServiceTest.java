@@ -0,0 +1,158 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.config.MemberExportProperties;
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.Team;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 파티션마다 별도의 커넥션으로 읽기 때문에 테스트 데이터는 커밋해 두고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberExportServiceTest {
+
+    private static final String PREFIX = "exportMember";
+
+    @Autowired MemberExportService memberExportService;
+    @Autowired MemberExportProperties properties;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired EntityManager em;
+
+    @BeforeEach
+    void setUp(){
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = new Team(PREFIX + "Team");
+            em.persist(team);
+            for (int i = 0; i < 50; i++) {
+                em.persist(new Member(PREFIX + i, i, i % 2 == 0 ? team : null));
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown(){
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("select m from Member m where m.username like :prefix", Member.class)
+                    .setParameter("prefix", PREFIX + "%")
+                    .getResultList()
+                    .forEach(em::remove);
+            em.createQuery("select t from Team t where t.name = :name", Team.class)
+                    .setParameter("name", PREFIX + "Team")
+                    .getResultList()
+                    .forEach(em::remove);
+        });
+    }
+
+    @Test
+    void exportCsv() throws Exception {
+        //given
+        StringWriter writer = new StringWriter();
+        List<ExportProgress> progresses = new ArrayList<>();
+        //when
+        ExportProgress result = memberExportService.export(writer, ExportFormat.CSV, progresses::add);
+        //then
+        List<String> lines = Arrays.asList(writer.toString().split("\n"));
+        assertThat(lines.get(0)).isEqualTo("member_id,username,age,team_id,team_name");
+        assertThat(lines).hasSize((int) result.getExported() + 1);
+        List<String> exported = lines.stream()
+                .filter(line -> line.contains("," + PREFIX))
+                .map(line -> line.split(",")[1])
+                .collect(Collectors.toList());
+        assertThat(exported).hasSize(50).doesNotHaveDuplicates();
+        assertThat(lines).anyMatch(line -> line.endsWith("," + PREFIX + "Team"));
+        assertThat(progresses).last().matches(ExportProgress::isDone);
+    }
+
+    @Test
+    void exportJsonLines() throws Exception {
+        //given
+        StringWriter writer = new StringWriter();
+        //when
+        memberExportService.export(writer, ExportFormat.JSON_LINES, progress -> { });
+        //then
+        assertThat(writer.toString().split("\n"))
+                .filteredOn(line -> line.contains("\"username\":\"" + PREFIX))
+                .hasSize(50)
+                .allMatch(line -> line.startsWith("{\"memberId\":"));
+    }
+
+    @Test
+    void failedWriterStopsExportThreads() throws Exception {
+        //given
+        int chunkSize = properties.getChunkSize();
+        int queueCapacity = properties.getQueueCapacity();
+        properties.setChunkSize(5);
+        properties.setQueueCapacity(1);
+        // 클라이언트 연결이 끊긴 것처럼 몇 줄 쓴 뒤부터 실패한다.
+        Writer disconnected = new Writer() {
+            private int lines;
+
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                for (int i = offset; i < offset + length; i++) {
+                    if (buffer[i] == '\n' && ++lines > 3) {
+                        throw new IOException("client disconnected");
+                    }
+                }
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Writer failing = new BufferedWriter(disconnected, 1);
+        try {
+            //when
+            assertThatThrownBy(() -> memberExportService.export(failing, ExportFormat.CSV, progress -> { }))
+                    .isInstanceOf(IOException.class);
+        } finally {
+            properties.setChunkSize(chunkSize);
+            properties.setQueueCapacity(queueCapacity);
+        }
+        //then
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (exportThreads() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(exportThreads()).isZero();
+    }
+
+    @Test
+    void partitionCoversRange(){
+        //when
+        List<long[]> partitions = MemberExportService.partition(10, 20, 4);
+        //then
+        assertThat(partitions).extracting(range -> range[0]).containsExactly(10L, 13L, 16L, 19L);
+        assertThat(partitions).extracting(range -> range[1]).containsExactly(12L, 15L, 18L, 20L);
+        assertThatThrownBy(() -> MemberExportService.partition(10, 20, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static long exportThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("member-export-"))
+                .count();
+    }
+}
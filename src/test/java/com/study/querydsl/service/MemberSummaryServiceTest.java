@@ -0,0 +1,126 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.dto.MemberSummary;
+import com.study.querydsl.dto.MemberSummaryCacheStats;
+import com.study.querydsl.repository.UsernameGramRepository;
+import com.study.querydsl.repository.support.MemberSummaryCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 쓰기 트랜잭션 안에서는 캐시를 거치지 않으므로 테스트 데이터는 커밋해 두고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberSummaryServiceTest {
+
+    private static final String PREFIX = "summaryCacheMember";
+
+    @Autowired MemberSummaryService memberSummaryService;
+    @Autowired UsernameGramRepository usernameGramRepository;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManager em;
+
+    List<Long> memberIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown(){
+        transactionTemplate.executeWithoutResult(status -> memberIds.forEach(id -> {
+            jdbcTemplate.update("delete from member_username_gram where member_id = ?", id);
+            jdbcTemplate.update("delete from member where member_id = ?", id);
+        }));
+    }
+
+    @Test
+    void secondLookupIsServedFromCache(){
+        //given
+        Long id = save(PREFIX + "Hit");
+        MemberSummaryCacheStats before = memberSummaryService.cacheStats();
+        //when
+        List<MemberSummary> first = memberSummaryService.findByUsername(PREFIX + "Hit");
+        List<MemberSummary> second = memberSummaryService.findByUsername(PREFIX + "Hit");
+        //then
+        MemberSummaryCacheStats after = memberSummaryService.cacheStats();
+        assertThat(first).containsExactly(new MemberSummary(id, PREFIX + "Hit", null));
+        assertThat(second).isEqualTo(first);
+        assertThat(after.getMisses() - before.getMisses()).isEqualTo(1);
+        assertThat(after.getHits() - before.getHits()).isEqualTo(1);
+        assertThat(after.getHitRatio()).isGreaterThan(0);
+    }
+
+    @Test
+    void negativeResultIsDroppedWhenMemberIsInserted(){
+        //given
+        MemberSummaryCacheStats before = memberSummaryService.cacheStats();
+        assertThat(memberSummaryService.findByUsername(PREFIX + "Later")).isEmpty();
+        assertThat(memberSummaryService.findByUsername(PREFIX + "Later")).isEmpty();
+        assertThat(memberSummaryService.cacheStats().getNegativeHits() - before.getNegativeHits()).isEqualTo(1);
+        //when
+        Long id = save(PREFIX + "Later");
+        //then
+        assertThat(memberSummaryService.findByUsername(PREFIX + "Later")).extracting(MemberSummary::getMemberId)
+                .containsExactly(id);
+    }
+
+    @Test
+    void renameInvalidatesOldUsername(){
+        //given
+        Long id = save(PREFIX + "Old");
+        assertThat(memberSummaryService.findByUsername(PREFIX + "Old")).hasSize(1);
+        //when
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, id).setUsername(PREFIX + "New"));
+        //then
+        assertThat(memberSummaryService.findByUsername(PREFIX + "Old")).isEmpty();
+        assertThat(memberSummaryService.findByUsername(PREFIX + "New")).extracting(MemberSummary::getMemberId)
+                .containsExactly(id);
+    }
+
+    @Test
+    void bulkRebuildClearsCache(){
+        //given
+        save(PREFIX + "Bulk");
+        memberSummaryService.findByUsername(PREFIX + "Bulk");
+        //when
+        transactionTemplate.executeWithoutResult(status -> usernameGramRepository.rebuildAll());
+        //then
+        assertThat(memberSummaryService.cacheStats().getSize()).isZero();
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted(){
+        //given
+        MemberSummaryCache cache = new MemberSummaryCache(2, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        cache.get("a", username -> Collections.singletonList(new MemberSummary(1L, username, null)));
+        cache.get("b", username -> Collections.emptyList());
+        cache.get("a", username -> Collections.emptyList());
+        //when
+        cache.get("c", username -> Collections.emptyList());
+        //then
+        assertThat(cache.stats().getEvictions()).isEqualTo(1);
+        assertThat(cache.get("a", username -> Collections.emptyList())).hasSize(1);
+        assertThat(cache.stats().getSize()).isEqualTo(2);
+    }
+
+    private Long save(String username) {
+        Long id = transactionTemplate.execute(status -> {
+            Member member = new Member(username, 20);
+            em.persist(member);
+            return member.getId();
+        });
+        memberIds.add(id);
+        return id;
+    }
+}
@@ -0,0 +1,150 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.config.MemberWriteBehindProperties;
+import com.study.querydsl.domain.Member;
+import com.study.querydsl.domain.MemberChangedEvent;
+import com.study.querydsl.repository.UsernameGramRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 버퍼는 자기 트랜잭션으로 내려쓰므로 테스트 데이터는 커밋해 두고 끝나면 지운다.
+ */
+@SpringBootTest
+class MemberWriteBehindBufferTest {
+
+    private static final String PREFIX = "writeBehindMember";
+
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired UsernameGramRepository usernameGramRepository;
+    @Autowired EntityManager em;
+
+    List<Long> memberIds = new ArrayList<>();
+    List<Object> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp(){
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 3; i++) {
+                Member member = new Member(PREFIX + i, i);
+                em.persist(member);
+                memberIds.add(member.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown(){
+        transactionTemplate.executeWithoutResult(status -> memberIds.forEach(id -> {
+            jdbcTemplate.update("delete from member_username_gram where member_id = ?", id);
+            jdbcTemplate.update("delete from member where member_id = ?", id);
+        }));
+    }
+
+    @Test
+    void coalesceUpdatesPerMember() throws Exception {
+        //given
+        MemberWriteBehindBuffer buffer = buffer(100, Duration.ofHours(1));
+        Long id = memberIds.get(0);
+        //when
+        buffer.updateUsername(id, PREFIX + "a");
+        buffer.updateAge(id, 30);
+        buffer.updateUsername(id, PREFIX + "b");
+        buffer.updateAge(memberIds.get(1), 40);
+        //then
+        assertThat(buffer.pendingCount()).isEqualTo(2);
+        assertThat(buffer.flush()).isEqualTo(2);
+        assertThat(usernameOf(id)).isEqualTo(PREFIX + "b");
+        assertThat(ageOf(id)).isEqualTo(30);
+        assertThat(usernameOf(memberIds.get(1))).isEqualTo(PREFIX + "1");
+        assertThat(ageOf(memberIds.get(1))).isEqualTo(40);
+        // username 이 바뀌면 gram 인덱스도 맞춰진다.
+        assertThat(jdbcTemplate.queryForList("select gram from member_username_gram where member_id = ?", String.class, id))
+                .contains("erb").doesNotContain("era");
+        // 회원 캐시가 비워지도록 내려쓴 회원으로 이벤트를 발행한다.
+        assertThat(events).hasSize(1);
+        assertThat(((MemberChangedEvent) events.get(0)).getMemberIds()).containsExactlyInAnyOrder(id, memberIds.get(1));
+        buffer.close();
+    }
+
+    @Test
+    void flushWhenMaxPendingReached() throws Exception {
+        //given
+        MemberWriteBehindBuffer buffer = buffer(2, Duration.ofHours(1));
+        //when
+        buffer.updateAge(memberIds.get(0), 50);
+        buffer.updateAge(memberIds.get(1), 51);
+        //then
+        long deadline = System.currentTimeMillis() + 5000;
+        while (ageOf(memberIds.get(1)) != 51 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(ageOf(memberIds.get(1))).isEqualTo(51);
+        assertThat(ageOf(memberIds.get(0))).isEqualTo(50);
+        buffer.close();
+    }
+
+    @Test
+    void closeFlushesPendingUpdates() throws Exception {
+        //given
+        MemberWriteBehindBuffer buffer = buffer(100, Duration.ofHours(1));
+        buffer.updateAge(memberIds.get(2), 60);
+        //when
+        buffer.close();
+        //then
+        assertThat(ageOf(memberIds.get(2))).isEqualTo(60);
+    }
+
+    @Test
+    void rejectNewMembersWhenBufferIsFull() throws Exception {
+        //given
+        MemberWriteBehindProperties properties = properties(100, Duration.ofHours(1));
+        properties.setMaxBuffered(2);
+        MemberWriteBehindBuffer buffer = new MemberWriteBehindBuffer(jdbcTemplate, transactionTemplate,
+                usernameGramRepository, events::add, properties);
+        buffer.updateAge(memberIds.get(0), 70);
+        buffer.updateAge(memberIds.get(1), 71);
+        //when
+        buffer.updateAge(memberIds.get(0), 72);
+        //then
+        assertThatThrownBy(() -> buffer.updateAge(memberIds.get(2), 73))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(buffer.pendingCount()).isEqualTo(2);
+        buffer.close();
+        assertThat(ageOf(memberIds.get(0))).isEqualTo(72);
+    }
+
+    private MemberWriteBehindBuffer buffer(int maxPending, Duration flushInterval) {
+        return new MemberWriteBehindBuffer(jdbcTemplate, transactionTemplate, usernameGramRepository, events::add,
+                properties(maxPending, flushInterval));
+    }
+
+    private MemberWriteBehindProperties properties(int maxPending, Duration flushInterval) {
+        MemberWriteBehindProperties properties = new MemberWriteBehindProperties();
+        properties.setMaxPending(maxPending);
+        properties.setFlushInterval(flushInterval);
+        return properties;
+    }
+
+    private String usernameOf(Long id) {
+        return jdbcTemplate.queryForObject("select username from member where member_id = ?", String.class, id);
+    }
+
+    private int ageOf(Long id) {
+        return jdbcTemplate.queryForObject("select age from member where member_id = ?", Integer.class, id);
+    }
+}
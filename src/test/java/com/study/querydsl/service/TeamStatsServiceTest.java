@@ -0,0 +1,129 @@
+package com.study.querydsl.service;
+
+import com.study.querydsl.config.QueryGuardrailProperties;
+import com.study.querydsl.config.TeamStatsProperties;
+import com.study.querydsl.dto.TeamStatsDto;
+import com.study.querydsl.repository.TeamQuerydslSupportRepository;
+import com.study.querydsl.repository.support.QueryCircuitBreaker;
+import com.study.querydsl.repository.support.QueryGuardrail;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TeamStatsServiceTest {
+
+    TeamQuerydslSupportRepository repository = mock(TeamQuerydslSupportRepository.class);
+    TeamStatsProperties properties = new TeamStatsProperties();
+    // 시계와 백그라운드 실행을 테스트가 직접 움직인다.
+    long now = 0;
+    Queue<Runnable> refreshes = new ArrayDeque<>();
+    TeamStatsService service;
+
+    @BeforeEach
+    void setUp(){
+        properties.setTtl(Duration.ofMillis(500));
+        properties.setRefreshAhead(Duration.ofMillis(100));
+        service = new TeamStatsService(repository, properties, () -> now, refreshes::add);
+        when(repository.stats()).thenReturn(
+                List.of(stats(1L, "TeamA")),
+                List.of(stats(1L, "TeamA"), stats(2L, "TeamB")));
+    }
+
+    @AfterEach
+    void tearDown(){
+        service.shutdown();
+    }
+
+    @Test
+    void serveFromCacheWithinRefreshAhead(){
+        //when
+        List<TeamStatsDto> first = service.getStats();
+        List<TeamStatsDto> second = service.getStats();
+        //then
+        assertThat(second).isSameAs(first);
+        verify(repository, times(1)).stats();
+    }
+
+    @Test
+    void refreshAheadInBackground(){
+        //given
+        service.getStats();
+        now += Duration.ofMillis(150).toNanos();
+        //when
+        List<TeamStatsDto> stale = service.getStats();
+        //then
+        assertThat(stale).hasSize(1);
+        assertThat(refreshes).hasSize(1);
+        refreshes.poll().run();
+        verify(repository, times(2)).stats();
+        assertThat(service.getStats()).hasSize(2);
+    }
+
+    @Test
+    void refreshStartedBeforeEvictIsNotServed(){
+        //given
+        when(repository.stats()).thenReturn(List.of(stats(1L, "TeamA")))
+                .thenAnswer(invocation -> {
+                    // 백그라운드 조회 도중에 회원이 바뀌었다.
+                    service.evict();
+                    return List.of(stats(1L, "TeamA"));
+                })
+                .thenReturn(List.of(stats(1L, "TeamA"), stats(2L, "TeamB")));
+        service.getStats();
+        now += Duration.ofMillis(150).toNanos();
+        service.getStats();
+        //when
+        refreshes.poll().run();
+        List<TeamStatsDto> result = service.getStats();
+        //then
+        assertThat(result).hasSize(2);
+        verify(repository, times(3)).stats();
+    }
+
+    @Test
+    void reloadAfterEvict(){
+        //given
+        service.getStats();
+        //when
+        service.evict();
+        //then
+        assertThat(service.getStats()).hasSize(2);
+        verify(repository, times(2)).stats();
+    }
+
+    @Test
+    void loadsOutsideRequestGuardrail(){
+        //given
+        QueryGuardrailProperties guardrailProperties = new QueryGuardrailProperties();
+        QueryGuardrail guardrail = new QueryGuardrail(guardrailProperties,
+                new QueryCircuitBreaker(guardrailProperties.getCircuitBreaker()));
+        List<QueryGuardrail.Scope> scopesDuringLoad = new ArrayList<>();
+        when(repository.stats()).thenAnswer(invocation -> {
+            scopesDuringLoad.add(QueryGuardrail.currentScope());
+            return List.of(stats(1L, "TeamA"));
+        });
+        //when
+        try (QueryGuardrail.Scope scope = guardrail.open("/teams/stats")) {
+            service.getStats();
+            assertThat(QueryGuardrail.currentScope()).isSameAs(scope);
+        }
+        //then
+        assertThat(scopesDuringLoad).hasSize(1).containsOnlyNulls();
+    }
+
+    private TeamStatsDto stats(Long teamId, String teamName) {
+        return new TeamStatsDto(teamId, teamName, 0L, 0L, null, null, null, 0L, 0L, 0L);
+    }
+}